@@ -0,0 +1,68 @@
+#!/bin/sh
+# Load-test profile of STS. For each scale step, generate a synthetic league with
+# 'java STS -generate', and (for steps in 'play' mode) play its tournament with metrics
+# enabled. The results are appended as CSV lines to $STS_LOADTEST_OUT:
+#
+#	teams,players,width,length,mode,file_bytes,generate_ms,run_ms,ticks_per_sec,peak_heap_bytes
+#
+# Usage: ./loadtest.sh [classpath [steps-file]]
+#
+# A steps file has one step per line: teams players width length mode, where mode is
+# 'play' or 'generate' (generate the league only, for leagues whose full tournament
+# would take too long). Lines starting with '#' are ignored.
+
+CP=${1:-bin}
+STEPS=$2
+OUT=${STS_LOADTEST_OUT:-loadtest.csv}
+DIR=${TMPDIR:-/tmp}/sts-loadtest.$$
+JAVA_OPTS=${JAVA_OPTS:-"-Xmx4g"}
+
+DEFAULT_STEPS="
+10 11 60 100 play
+20 11 120 200 play
+40 11 300 500 play
+8 200 600 1000 play
+4 11 1998 1998 play
+1000 11 60 100 generate
+1000 200 2000 2000 generate
+"
+
+now_ms () {
+	echo $(( $(date +%s%N) / 1000000 ))
+}
+
+mkdir -p "$DIR" || exit 1
+trap 'rm -rf "$DIR"' EXIT
+
+if [ ! -f "$OUT" ]; then
+	echo "teams,players,width,length,mode,file_bytes,generate_ms,run_ms,ticks_per_sec,peak_heap_bytes" > "$OUT"
+fi
+
+if [ -n "$STEPS" ]; then
+	cat "$STEPS"
+else
+	echo "$DEFAULT_STEPS"
+fi | grep -v '^#' | while read teams players width length mode; do
+	[ -z "$teams" ] && continue
+
+	league="$DIR/league.txt"
+	start=$(now_ms)
+	java $JAVA_OPTS -cp "$CP" STS -generate "$teams" "$players" "$width" "$length" 50 1 > "$league" || exit 1
+	generate_ms=$(( $(now_ms) - start ))
+	bytes=$(wc -c < "$league")
+
+	run_ms=""
+	ticks=""
+	heap=""
+
+	if [ "$mode" = "play" ]; then
+		start=$(now_ms)
+		java $JAVA_OPTS -Dsts.metrics=true -cp "$CP" STS "$league" > /dev/null 2> "$DIR/metrics.txt" || exit 1
+		run_ms=$(( $(now_ms) - start ))
+		ticks=$(sed -n 's/.*ticks\/sec: \([0-9]*\).*/\1/p' "$DIR/metrics.txt")
+		heap=$(sed -n 's/.*Peak heap: \([0-9]*\) bytes.*/\1/p' "$DIR/metrics.txt")
+	fi
+
+	echo "$teams,$players,$width,$length,$mode,$bytes,$generate_ms,$run_ms,$ticks,$heap" | tee -a "$OUT"
+	rm -f "$league"
+done
@@ -0,0 +1,282 @@
+/* A class that ranks the teams of a tournament within a wall-clock budget, for tools that
+   need an answer in seconds even for leagues whose full tournament would take far longer:
+
+	java STS -budget attributes.txt milliseconds
+
+   The fixtures are played in the order that tells the most about the ranking. First, a
+   few interleaved rounds are played (with the circle method, so that every team plays
+   once per round), so that every team has been seen. Then the fixtures are played in
+   batches in which no team plays twice, and the unplayed fixtures go first whose teams
+   are closest in points per game relative to the uncertainty of their points per game:
+   these are the pairs whose order is least certain, and teams that have played few
+   games are uncertain. The batch order is recomputed after every batch.
+
+   Provisional standings can be output at any moment. They rank the teams by their
+   projected points (the points they have, plus their points per game times the number
+   of games they have left), with 95% bounds that combine the uncertainty of the points
+   per game with the randomness of the games left. The bounds narrow as games are played,
+   and are exact when every fixture has been played. When the budget runs out, no more
+   games are started, and the standings of the games played so far are output.
+ */
+
+import java.util.*;
+
+class AnytimeRanking {
+	private static final int WARM_UP_ROUNDS = 2;		/* Interleaved rounds played first.				*/
+	private static final double MAX_VARIANCE = 2.25;	/* Largest variance of the points of a game.	*/
+	private static final double Z = 1.96;				/* Normal quantile of the 95% bounds.			*/
+
+	private Tournament tournament;		/* Plays the fixtures and records their results.		*/
+	private Vector<Team> teams;			/* Teams of the tournament.								*/
+	private int numTeams;				/* Number of teams.										*/
+	private boolean [][] played;		/* True for played fixtures, by home and away team.		*/
+	private int [] games;				/* Number of games played by each team.					*/
+	private int [] points;				/* Points earned by each team.							*/
+	private long [] squares;			/* Sum of the squares of the points of each game.		*/
+	private int fixturesPlayed;			/* Number of fixtures played.							*/
+	private long deadline;				/* Time (System.nanoTime()) after which no game starts.	*/
+
+
+	/* Return the points earned by a team that scored 'scored' and conceded 'conceded'.
+	 */
+	private static int points (int scored, int conceded) {
+		if (scored > conceded)
+			return 3;
+		else if (scored == conceded)
+			return 1;
+		else
+			return 0;
+	}
+
+
+	/* Return the number of fixtures of the tournament.
+	 */
+	private int totalFixtures () {
+		return numTeams * (numTeams - 1);
+	}
+
+
+	/* Return the number of games of a full tournament for each team.
+	 */
+	private int totalGames () {
+		return 2 * (numTeams - 1);
+	}
+
+
+	/* Play a fixture between a home team (i) and an away team (j), unless it has been
+	   played or the budget has run out. Return false if the budget has run out.
+	 */
+	private boolean play (int i, int j) {
+		if (System.nanoTime() >= deadline)
+			return false;
+
+		if (played[i][j])
+			return true;
+
+		Team team1 = teams.elementAt(i);
+		Team team2 = teams.elementAt(j);
+		int [] score = tournament.playFixture(team1, team2);
+
+		int points1 = points(score[0], score[1]);
+		int points2 = points(score[1], score[0]);
+
+		synchronized (this) {
+			played[i][j] = true;
+			fixturesPlayed++;
+			games[i]++;
+			games[j]++;
+			points[i] += points1;
+			points[j] += points2;
+			squares[i] += points1 * points1;
+			squares[j] += points2 * points2;
+		}
+
+		return true;
+	}
+
+
+	/* Return the mean points per game of a team, or of all teams if it has played none.
+	 */
+	private double pointsPerGame (int i) {
+		if (games[i] > 0)
+			return (double) points[i] / games[i];
+
+		long allPoints = 0;
+
+		for (int k=0; k < numTeams; k++)
+			allPoints += points[k];
+
+		return (fixturesPlayed == 0) ? 1 : (double) allPoints / (2 * fixturesPlayed);
+	}
+
+
+	/* Return the variance of the points of a game of a team. The sample variance is
+	   shrunk towards the largest variance by one pseudo-game, so that a team whose few
+	   games all ended alike is not taken to be certain.
+	 */
+	private double variance (int i) {
+		if (games[i] == 0)
+			return MAX_VARIANCE;
+
+		double mean = (double) points[i] / games[i];
+		double deviations = squares[i] - games[i] * mean * mean;
+
+		return (Math.max(deviations, 0) + MAX_VARIANCE) / games[i];
+	}
+
+
+	/* Return the priority of an unplayed fixture between teams i and j: the difference of
+	   their points per game in standard errors. Lower values go first.
+	 */
+	private double priority (int i, int j) {
+		if (games[i] == 0 || games[j] == 0)
+			return 0;
+
+		double error = Math.sqrt(variance(i) / games[i] + variance(j) / games[j]);
+
+		return Math.abs(pointsPerGame(i) - pointsPerGame(j)) / error;
+	}
+
+
+	/* Play the first rounds of a round robin, with the circle method: team m-1 stays,
+	   and the others rotate, so that every team plays once per round (a team that is
+	   paired with the padding team of an odd league rests).
+	 */
+	private boolean playWarmUpRounds () {
+		int m = numTeams + numTeams % 2;
+
+		for (int r=0; r < Math.min(WARM_UP_ROUNDS, m - 1); r++) {
+			for (int k=0; k < m/2; k++) {
+				int a = (k == 0) ? m - 1 : (r + k) % (m - 1);
+				int b = (r - k + m - 1) % (m - 1);
+
+				if (a >= numTeams || b >= numTeams)
+					continue;
+
+				boolean aAtHome = (r + k) % 2 == 0;
+
+				if (!play(aAtHome ? a : b, aAtHome ? b : a))
+					return false;
+			}
+		}
+
+		return true;
+	}
+
+
+	/* Play a batch of the most uncertain unplayed fixtures, in which no team plays twice.
+	   Return false if the budget has run out.
+	 */
+	private boolean playBatch () {
+		int n = totalFixtures() - fixturesPlayed;
+		long [] order = new long [n];
+		int k = 0;
+
+		/* The priorities are non-negative, so their float bits sort like them, and the
+		   fixture is kept in the low bits.
+		 */
+		for (int i=0; i < numTeams; i++)
+			for (int j=0; j < numTeams; j++)
+				if (i != j && !played[i][j])
+					order[k++] = ((long) Float.floatToIntBits((float) priority(i, j)) << 32) | (i * numTeams + j);
+
+		Arrays.sort(order);
+
+		boolean [] busy = new boolean [numTeams];
+		int batch = 0;
+
+		for (k=0; k < n && batch < numTeams / 2; k++) {
+			int fixture = (int) order[k];
+			int i = fixture / numTeams;
+			int j = fixture % numTeams;
+
+			if (busy[i] || busy[j])
+				continue;
+
+			busy[i] = true;
+			busy[j] = true;
+			batch++;
+
+			if (!play(i, j))
+				return false;
+		}
+
+		return true;
+	}
+
+
+	/* Play the fixtures, most informative first, until all of them have been played or
+	   the budget (in milliseconds) has run out. Then output the standings.
+	 */
+	public void run (long budget) {
+		deadline = System.nanoTime() + budget * 1000000L;
+
+		if (playWarmUpRounds())
+			while (fixturesPlayed < totalFixtures() && playBatch())
+				;
+
+		outputStandings();
+		Metrics.printSummary();
+	}
+
+
+	/* Output the provisional standings: every team's games played, points, points per
+	   game, and projected points with their 95% bounds, by projected points. This may be
+	   called at any moment, e.g., by another thread while the fixtures are played.
+	 */
+	public synchronized void outputStandings () {
+		int total = totalGames();
+		double [] projected = new double [numTeams];
+		double [] low = new double [numTeams];
+		double [] high = new double [numTeams];
+		Integer [] ranking = new Integer [numTeams];
+
+		for (int i=0; i < numTeams; i++) {
+			int left = total - games[i];
+			double perGame = pointsPerGame(i);
+			double v = variance(i);
+
+			/* The error of the points per game is scaled by the games left, and each
+			   game left adds its own variance.
+			 */
+			double error = Z * Math.sqrt(left * (double) left * v / Math.max(games[i], 1) + left * v);
+
+			projected[i] = points[i] + perGame * left;
+			low[i] = Math.max(points[i], projected[i] - error);
+			high[i] = Math.min(points[i] + 3.0 * left, projected[i] + error);
+			ranking[i] = i;
+		}
+
+		Arrays.sort(ranking, new Comparator<Integer>() {
+			public int compare (Integer a, Integer b) {
+				return Double.compare(projected[b], projected[a]);
+			}
+		});
+
+		System.out.printf("Played %d of %d fixtures.\n", fixturesPlayed, totalFixtures());
+		System.out.printf("%-20s %6s %6s %6s %9s %17s\n", "Team", "Played", "Points", "PPG", "Projected", "95% bounds");
+
+		for (int k=0; k < numTeams; k++) {
+			int i = ranking[k];
+			String name = teams.elementAt(i).getName();
+
+			System.out.printf("%-20s %6d %6d %6.2f %9.1f %8.1f %8.1f\n", (name.length() > 20) ? name.substring(0, 20) : name,
+					games[i], points[i], (games[i] > 0) ? (double) points[i] / games[i] : 0.0, projected[i], low[i], high[i]);
+		}
+	}
+
+
+	/* Construct a ranking of the given teams on a pitch of the given size.
+	 */
+	public AnytimeRanking (Vector<Team> newTeams, int pitchWidth, int pitchLength) {
+		assert newTeams != null && newTeams.size() > 1 : "At least 2 teams are needed for a ranking.";
+
+		teams = newTeams;
+		numTeams = teams.size();
+		tournament = new Tournament(teams, pitchWidth, pitchLength, null);
+		played = new boolean [numTeams][numTeams];
+		games = new int [numTeams];
+		points = new int [numTeams];
+		squares = new long [numTeams];
+	}
+} /* AnytimeRanking */
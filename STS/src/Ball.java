@@ -4,7 +4,7 @@
  */
 
 public class Ball {
-	private Point2D position; 		/* current ball position */
+	private Point2D position; 		/* current ball position, owned by the ball */
 
 
 	/* Get the ball coordinates on a 2D pitch. 
@@ -14,18 +14,28 @@ public class Ball {
 	}
 
 
-	/* Set the ball coordinates on a 2D pitch. 
+	/* Set the ball coordinates on a 2D pitch. The coordinates are copied, so the ball
+	   does not share its position with, e.g., the player who passed it.
 	 */
 	public void setCoordinates (Point2D newPosition) {
 		assert newPosition != null : "Null position passed to setCoordinates().";
 		 
-		position = newPosition;
+		setCoordinates(newPosition.getX(), newPosition.getY());
+	}
+
+
+	/* Set the ball coordinates on a 2D pitch to (x,y). 
+	 */
+	public void setCoordinates (int x, int y) {
+		position.setX(x);
+		position.setY(y);
 	}
 
 
 	/* Construct and initialize a ball. 
  	 */
 	public Ball (Point2D newPosition) {
+		position = new Point2D(0, 0);
 		setCoordinates(newPosition);
 	}
 } /* Ball */
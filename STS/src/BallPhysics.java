@@ -0,0 +1,228 @@
+/* A class that implements the movement of the ball on a pitch: keeping kicked balls within
+   the pitch bounds, recording the trajectory of the last kick, intercepting kicks, and
+   detecting goals.
+
+   When interception is enabled (see the Settings class), a kicked ball travels along the
+   straight line to its target, and the first player of the opposing team on that line
+   stops it. The line is walked with Bresenham's integer algorithm over the occupancy grid
+   of the pitch, so an interception check takes time proportional to the length of the
+   kick and does not allocate any objects.
+
+   Goal detection uses lookup tables that are computed once per pitch: a table over the X
+   coordinates that marks the goal mouth (strictly between the posts), and a table over the
+   Y coordinates that marks the goal lines of goal 1 and goal 2. A goal check is then two
+   array reads and a multiplication, without comparisons.
+ */
+
+class BallPhysics {
+	private Pitch pitch;				/* Pitch on which the ball moves.						*/
+	private int maxX;					/* Maximum X pitch coordinate.							*/
+	private int maxY;					/* Maximum Y pitch coordinate.							*/
+	private byte [] goalMouth;			/* 1 if the X coordinate is between the posts, else 0. 	*/
+	private byte [] goalLine;			/* Goal (1 or 2) whose line is at a Y coordinate, or 0. */
+	private BallTrajectory trajectory;	/* Trajectory of the last kick.							*/
+	private Player interceptor;			/* Player who intercepted the last kick, or null.		*/
+
+
+	/* If the ball is in Goal 1, return 1, if it is in Goal 2, return 2, otherwise return 0.
+	 */
+	public int inGoal (Ball ball) {
+		assert ball != null : "Null ball passed to inGoal().";
+
+		Point2D position = ball.getCoordinates();
+		return inGoal(position.getX(), position.getY());
+	}
+
+
+	/* If (x,y) is in Goal 1, return 1, if it is in Goal 2, return 2, otherwise return 0.
+	 */
+	public int inGoal (int x, int y) {
+		return goalLine[y] * goalMouth[x];
+	}
+
+
+	/* Return x moved within the pitch bounds.
+	 */
+	public int clampX (int x) {
+		return Math.min(Math.max(x, 0), maxX);
+	}
+
+
+	/* Return y moved within the pitch bounds.
+	 */
+	public int clampY (int y) {
+		return Math.min(Math.max(y, 0), maxY);
+	}
+
+
+	/* Kick the ball from its current position towards (x,y). If (x,y) is out of bounds,
+	   the ball stops at the nearest in-bounds position. If interception is enabled, the
+	   ball stops at the first player who is not a member of the kicking team along the 
+	   way, who is then in possession (see getInterceptor()). The trajectory of the kick
+	   is recorded, and can be inspected with getTrajectory() until the next kick.
+	 */
+	public void kick (Ball ball, int x, int y, Team kickers) {
+		assert ball != null : "Null ball passed to kick().";
+
+		Point2D position = ball.getCoordinates();
+		int newx = clampX(x);
+		int newy = clampY(y);
+
+		trajectory.set(position.getX(), position.getY(), newx, newy);
+		interceptor = null;
+
+		if (Settings.INTERCEPTION && intercept(kickers)) {
+			Metrics.interception();
+			newx = trajectory.getToX();
+			newy = trajectory.getToY();
+		}
+
+		ball.setCoordinates(newx, newy);
+	}
+
+
+	/* Walk the trajectory of the kick, from the cell after the kicker's to the target,
+	   using Bresenham's line algorithm. If a player of a team other than the kicking 
+	   team occupies a cell on the way, shorten the trajectory to end at that cell, record
+	   the player as the interceptor and return true. Otherwise return false.
+	 */
+	private boolean intercept (Team kickers) {
+		int x0 = trajectory.getFromX();
+		int y0 = trajectory.getFromY();
+		int x1 = trajectory.getToX();
+		int y1 = trajectory.getToY();
+
+		int dx = Math.abs(x1 - x0);
+		int dy = -Math.abs(y1 - y0);
+		int sx = (x0 < x1) ? 1 : -1;
+		int sy = (y0 < y1) ? 1 : -1;
+		int err = dx + dy;
+		int x = x0;
+		int y = y0;
+
+		while (x != x1 || y != y1) {
+			int e2 = 2 * err;
+
+			if (e2 >= dy) {
+				err += dy;
+				x += sx;
+			}
+			if (e2 <= dx) {
+				err += dx;
+				y += sy;
+			}
+
+			Object o = pitch.getObject(x, y);
+
+			if (o != null && ((Player) o).getTeam() != kickers) {
+				trajectory.set(x0, y0, x, y);
+				interceptor = (Player) o;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+
+	/* Return the player who intercepted the last kick, or null if it was not intercepted.
+	 */
+	public Player getInterceptor () {
+		return interceptor;
+	}
+
+
+	/* Return the trajectory of the last kick. The same object is reused by every kick.
+	 */
+	public BallTrajectory getTrajectory () {
+		return trajectory;
+	}
+
+
+	/* Construct the ball physics of a pitch, precomputing its goal lookup tables.
+	 */
+	public BallPhysics (Pitch newPitch) {
+		assert newPitch != null : "Null pitch passed to BallPhysics().";
+
+		pitch = newPitch;
+
+		int width = pitch.getPitchWidth();
+		int length = pitch.getPitchLength();
+
+		maxX = width - 1;
+		maxY = length - 1;
+		goalMouth = new byte[width];
+		goalLine = new byte[length];
+		trajectory = new BallTrajectory();
+
+		int lowPost = pitch.getGoal1Coordinates()[0].getX();
+		int highPost = pitch.getGoal1Coordinates()[1].getX();
+
+		for (int x=lowPost+1; x < highPost; x++)
+			goalMouth[x] = 1;
+
+		/* Goal 1 is checked first by Pitch.inGoal(), so it wins on a pitch of length 1.
+		 */
+		goalLine[pitch.getGoal2Coordinates()[0].getY()] = 2;
+		goalLine[pitch.getGoal1Coordinates()[0].getY()] = 1;
+	}
+} /* BallPhysics */
+
+
+
+/* A class that stores the trajectory of a kick: the straight line from the position where
+   the ball was kicked to the position where it stopped. The cells along the line can be
+   visited by stepping from one end to the other, so that the players along the ball's
+   path can be found without allocating any objects.
+ */
+class BallTrajectory {
+	private int fromX, fromY;		/* Position where the ball was kicked.	*/
+	private int toX, toY;			/* Position where the ball stopped.		*/
+
+
+	/* Set the trajectory to the line from (x0,y0) to (x1,y1).
+	 */
+	void set (int x0, int y0, int x1, int y1) {
+		fromX = x0;
+		fromY = y0;
+		toX = x1;
+		toY = y1;
+	}
+
+
+	/* Return the X coordinate where the ball was kicked.
+	 */
+	public int getFromX () {
+		return fromX;
+	}
+
+
+	/* Return the Y coordinate where the ball was kicked.
+	 */
+	public int getFromY () {
+		return fromY;
+	}
+
+
+	/* Return the X coordinate where the ball stopped.
+	 */
+	public int getToX () {
+		return toX;
+	}
+
+
+	/* Return the Y coordinate where the ball stopped.
+	 */
+	public int getToY () {
+		return toY;
+	}
+
+
+	/* Return the length of the trajectory in cells, i.e., the number of steps that are
+	   needed to go from one end to the other when every step moves to one of the (up to 8)
+	   neighbouring cells.
+	 */
+	public int getLength () {
+		return Math.max(Math.abs(toX - fromX), Math.abs(toY - fromY));
+	}
+} /* BallTrajectory */
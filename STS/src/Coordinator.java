@@ -0,0 +1,256 @@
+/* A class that coordinates a tournament whose games are played by worker processes
+   (see the Worker class). Every fixture of the tournament is a unit of work. Workers
+   connect to the coordinator over a socket, receive the attributes of the tournament
+   and then repeatedly receive fixtures and send back their final scores.
+
+   Workers pull work, so faster workers play more games than slower ones. Each worker
+   has at most 'window' units in flight. If a worker fails (its connection breaks or it
+   does not answer in time), its units in flight are put back on the queue and are
+   dispatched to the remaining workers.
+
+   The protocol is made of the following messages, written with DataOutputStream:
+
+	coordinator -> worker:	ROSTER  long rosterSeed, int length, byte[length] attributes
+							FIXTURE int unit, int homeTeam, int awayTeam, long gameSeed
+							QUIT
+	worker -> coordinator:	RESULT  int unit, int homeScore, int awayScore
+ */
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+class Coordinator {
+	static final byte ROSTER = 'R';				/* Message with the attributes and roster seed.		*/
+	static final byte FIXTURE = 'F';			/* Message with a unit of work.						*/
+	static final byte RESULT = 'S';				/* Message with the final score of a unit.			*/
+	static final byte QUIT = 'Q';				/* Message that tells a worker to stop.				*/
+
+	private final int window = 2;				/* Maximum number of units in flight per worker. 	*/
+	private final int maxAttempts = 3;			/* Maximum number of times a unit is dispatched.	*/
+	private final int unitTimeout = 600000;		/* Milliseconds a worker may take to answer.		*/
+
+	private String attributes;					/* Contents of the attributes file.					*/
+	private long rosterSeed;					/* Seed used to build the roster everywhere.		*/
+	private Vector<Team> teams;					/* Teams of the tournament.							*/
+	private Tournament tournament;				/* Tournament whose records are kept here.			*/
+	private LinkedBlockingDeque<int[]> pending;	/* Units that are waiting to be dispatched.			*/
+	private long [] gameSeeds;					/* Seed of the game of each unit.					*/
+	private int [] attempts;					/* Number of times each unit has been dispatched.	*/
+	private int remaining;						/* Number of units without a result.				*/
+	private ServerSocket server;				/* Socket on which workers connect.					*/
+
+
+	/* Accept workers on the given port and play the tournament. Return when every unit
+	   has a result, after the final tables have been output.
+	 */
+	public void run (int port) {
+		try {
+			server = new ServerSocket(port);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		Thread acceptor = new Thread(new Runnable() {
+			public void run () {
+				acceptWorkers();
+			}
+		});
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		synchronized (this) {
+			while (remaining > 0) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Quit.now("Coordinator interrupted.");
+				}
+			}
+		}
+
+		try {
+			server.close();
+		} catch (IOException e) {
+			/* The server socket is no longer needed. */
+		}
+
+		tournament.outputResults();
+	}
+
+
+	/* Accept worker connections until the server socket is closed. Each worker is
+	   served by its own thread.
+	 */
+	private void acceptWorkers () {
+		while (!server.isClosed()) {
+			try {
+				final Socket socket = server.accept();
+				Thread handler = new Thread(new Runnable() {
+					public void run () {
+						serveWorker(socket);
+					}
+				});
+
+				/* Handlers must send QUIT to their workers before the coordinator exits.
+				 */
+				handler.setDaemon(false);
+				handler.start();
+			} catch (IOException e) {
+				/* The server socket has been closed. */
+			}
+		}
+	}
+
+
+	/* Send the roster to a worker and then keep it busy with units until there is no
+	   work left. If the worker fails, its units in flight are put back on the queue.
+	 */
+	private void serveWorker (Socket socket) {
+		ArrayDeque<int[]> inFlight = new ArrayDeque<int[]>();
+
+		try {
+			socket.setSoTimeout(unitTimeout);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+			byte [] text = attributes.getBytes("UTF-8");
+			out.writeByte(ROSTER);
+			out.writeLong(rosterSeed);
+			out.writeInt(text.length);
+			out.write(text);
+			out.flush();
+
+			while (true) {
+				/* Keep the worker's window full.
+				 */
+				while (inFlight.size() < window) {
+					int [] unit = (inFlight.isEmpty()) ? pending.poll(1, TimeUnit.SECONDS) : pending.poll();
+					if (unit == null)
+						break;
+
+					inFlight.addLast(unit);
+					dispatched(unit);
+					out.writeByte(FIXTURE);
+					out.writeInt(unit[0]);
+					out.writeInt(unit[1]);
+					out.writeInt(unit[2]);
+					out.writeLong(gameSeeds[unit[0]]);
+				}
+				out.flush();
+
+				if (inFlight.isEmpty()) {
+					if (isDone())
+						break;
+					continue;
+				}
+
+				if (in.readByte() != RESULT)
+					throw new IOException("Unexpected message from worker.");
+
+				int unitId = in.readInt();
+				int homeScore = in.readInt();
+				int awayScore = in.readInt();
+				int [] unit = inFlight.removeFirst();
+
+				if (unit[0] != unitId)
+					throw new IOException("Unexpected unit " + unitId + " from worker.");
+
+				tournament.recordResult(teams.get(unit[1]), teams.get(unit[2]), homeScore, awayScore);
+				completed();
+			}
+
+			out.writeByte(QUIT);
+			out.flush();
+		} catch (IOException e) {
+			System.err.println("Lost worker " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+		} catch (InterruptedException e) {
+			/* Stop serving the worker. */
+		} finally {
+			/* Re-dispatch the units of a failed worker, keeping their order.
+			 */
+			while (!inFlight.isEmpty())
+				pending.addFirst(inFlight.removeLast());
+
+			try {
+				socket.close();
+			} catch (IOException e) {
+				/* The socket is no longer needed. */
+			}
+		}
+	}
+
+
+	/* Count a dispatch of a unit. A unit that has failed on too many workers is
+	   probably failing the workers, so the tournament is abandoned.
+	 */
+	private synchronized void dispatched (int [] unit) {
+		if (++attempts[unit[0]] > maxAttempts)
+			Quit.now("Unit " + unit[0] + " failed on " + maxAttempts + " workers.");
+	}
+
+
+	/* Count a unit that has a result and wake up the coordinator when all units do.
+	 */
+	private synchronized void completed () {
+		remaining--;
+		if (remaining == 0)
+			notifyAll();
+	}
+
+
+	/* Return true if every unit has a result.
+	 */
+	private synchronized boolean isDone () {
+		return remaining == 0;
+	}
+
+
+	/* Construct a coordinator for the tournament described by the attributes text. The
+	   roster is built here from a fresh seed, which is later sent to the workers.
+	 */
+	public Coordinator (String newAttributes, String outputSpec) {
+		assert newAttributes != null : "Null attributes passed to Coordinator().";
+
+		attributes = newAttributes;
+		rosterSeed = new Random().nextLong();
+
+		Parser parser = new Parser(attributes);
+		teams = STS.buildTeams(parser, new Random(rosterSeed));
+		tournament = new Tournament(teams, parser.getPitchWidth(), parser.getPitchLength(), outputSpec);
+
+		/* The coordinator does not play any games, so the roaming coordinates of the
+		   players, which are output for the best team, are set here.
+		 */
+		for (int i=0; i < teams.size(); i++) {
+			teams.get(i).setGoal(1);
+			teams.get(i).setPlayersRoamingCoordinates();
+		}
+
+		/* Every fixture, i.e., every ordered pair of distinct teams, is a unit of work.
+		 */
+		int numTeams = teams.size();
+		int numUnits = numTeams * (numTeams - 1);
+		Random seeds = new Random(rosterSeed);
+
+		pending = new LinkedBlockingDeque<int[]>();
+		gameSeeds = new long[numUnits];
+		attempts = new int[numUnits];
+		remaining = numUnits;
+
+		for (int i=0; i < numTeams; i++) {
+			for (int j=0; j < numTeams; j++) {
+				if (i == j) continue;
+
+				int [] unit = new int[3];
+				unit[0] = pending.size();
+				unit[1] = i;
+				unit[2] = j;
+				gameSeeds[unit[0]] = seeds.nextLong();
+				pending.addLast(unit);
+			}
+		}
+	}
+} /* Coordinator */
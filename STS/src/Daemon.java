@@ -0,0 +1,102 @@
+/* A class that implements a long-lived STS process. The daemon listens on a local (loopback)
+   socket. Each connection sends one line with the same arguments as the command line of STS,
+   i.e., an attributes file name optionally followed by an output specification, and receives
+   the output of the tournament. The connection is closed when the tournament is over.
+
+	echo "/path/to/attributes.txt ts" | nc localhost 4712
+
+   Runs are served one at a time, in the order in which they connect, so that repeated short
+   runs share a warm JVM (loaded classes and compiled code) instead of starting a new one.
+   File names are resolved relative to the directory in which the daemon was started.
+ */
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+class Daemon {
+	private static final int READ_TIMEOUT = 10000;	/* Milliseconds to wait for a run's line.	*/
+
+	private int port;		/* Port on which the daemon listens. */
+
+
+	/* Serve runs until the process is killed.
+	 */
+	public void run () {
+		ServerSocket server = null;
+
+		try {
+			server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		/* A bad attributes file fails its run (see the Quit class), not the daemon.
+		 */
+		Quit.setRecoverable(true);
+
+		while (true) {
+			try (Socket socket = server.accept()) {
+				serve(socket);
+			} catch (IOException e) {
+				System.err.println("Daemon connection failed: " + e.getMessage());
+			}
+		}
+	}
+
+
+	/* Read the arguments of a run from a connection and play the tournament, sending
+	   everything that the tournament outputs back over the connection. Runs are served
+	   one at a time, so a connection that does not send its line in time is dropped.
+	 */
+	private void serve (Socket socket) throws IOException {
+		socket.setSoTimeout(READ_TIMEOUT);
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+		PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, "UTF-8");
+		String line = in.readLine();
+
+		if (line == null)
+			return;
+
+		String [] args = line.trim().split("\\s+");
+
+		if (args.length < 1 || args.length > 2 || args[0].length() == 0) {
+			out.println("Usage: attributes.txt [s|st|ts|t]");
+			out.flush();
+			return;
+		}
+
+		if (!new File(args[0]).canRead()) {
+			out.println("Cannot read " + args[0]);
+			out.flush();
+			return;
+		}
+
+		String outputSpec = (args.length == 2) ? args[1] : null;
+
+		try {
+			Parser parser = new Parser(STS.readFile(args[0]));
+			Vector<Team> teams = STS.buildTeams(parser, (Settings.SEED == null) ? new Random() : new Random(Settings.SEED));
+			Tournament tournament = new Tournament(teams, parser.getPitchWidth(), parser.getPitchLength(), outputSpec);
+			tournament.setOutput(out);
+			tournament.play();
+		} catch (IllegalArgumentException e) {
+			out.println("Run failed: " + e.getMessage());
+		} catch (RuntimeException e) {
+			out.println("Run failed: " + e);
+		} catch (AssertionError e) {
+			out.println("Run failed: " + e.getMessage());
+		} finally {
+			out.flush();
+		}
+	}
+
+
+	/* Construct a daemon that listens on the given local port.
+	 */
+	public Daemon (int newPort) {
+		port = newPort;
+	}
+} /* Daemon */
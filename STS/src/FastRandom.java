@@ -0,0 +1,141 @@
+/* A class that implements the random number generator of a game. java.util.Random
+   updates an atomic seed for every number, and draws bounded ints with a division (and a
+   loop for bounds that are not powers of 2). A game draws several bounded ints per tick
+   for the kicks and the coin, and two for every move of every player, so it draws far
+   more numbers than it does anything else.
+
+   This generator is xoroshiro128++, seeded with SplitMix64, which makes a 64-bit number
+   with a few shifts, rotations and additions. The numbers are made in bulk: a buffer of
+   BUFFER_SIZE 32-bit numbers is filled at once, in a tight loop, and handed out one at a
+   time. Bounded ints are drawn with Lemire's method: the 32-bit number is multiplied by
+   the bound, and the high 32 bits of the product are the result. The low 32 bits show
+   whether the result is biased; that is rare, and only then is a remainder taken and the
+   number redrawn. The numbers of a seed are always the same.
+
+   The generator of a game is chosen by a setting (see the Settings class), so the
+   results of seeds from earlier versions can still be reproduced with java.util.Random.
+ */
+
+import java.util.Random;
+
+class FastRandom extends Random {
+	private static final long serialVersionUID = 1L;
+
+	private static final int BUFFER_SIZE = 256;		/* Numbers made at once (even).				*/
+
+	private long s0, s1;							/* State of the xoroshiro128++ generator.	*/
+	private int [] buffer;							/* Numbers made and not handed out yet.		*/
+	private int position;							/* Index of the next number in the buffer.	*/
+
+
+	/* Return a new generator for a game, with the given seed, of the kind set by the
+	   sts.random setting.
+	 */
+	static Random create (long seed) {
+		if (Settings.RANDOM.equals("fast"))
+			return new FastRandom(seed);
+
+		if (!Settings.RANDOM.equals("java"))
+			Quit.now("Invalid value of sts.random: " + Settings.RANDOM);
+
+		return new Random(seed);
+	}
+
+
+	/* Fill the buffer with the next BUFFER_SIZE / 2 numbers of xoroshiro128++, each of
+	   which makes two 32-bit numbers.
+	 */
+	private void fill () {
+		long a = s0;
+		long b = s1;
+
+		for (int i=0; i < BUFFER_SIZE; i += 2) {
+			long result = Long.rotateLeft(a + b, 17) + a;
+
+			b ^= a;
+			a = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+			b = Long.rotateLeft(b, 28);
+
+			buffer[i] = (int) result;
+			buffer[i+1] = (int) (result >>> 32);
+		}
+
+		s0 = a;
+		s1 = b;
+		position = 0;
+	}
+
+
+	/* Return the next 32 random bits.
+	 */
+	private int nextBits () {
+		if (position == BUFFER_SIZE)
+			fill();
+
+		return buffer[position++];
+	}
+
+
+	/* Return the next 'bits' random bits. The methods of Random that are not overridden
+	   draw their numbers from this method.
+	 */
+	protected int next (int bits) {
+		return nextBits() >>> (32 - bits);
+	}
+
+
+	/* Return a random int.
+	 */
+	public int nextInt () {
+		return nextBits();
+	}
+
+
+	/* Return a random int between 0 (inclusive) and bound (exclusive), without bias,
+	   with Lemire's multiply-shift method.
+	 */
+	public int nextInt (int bound) {
+		if (bound <= 0)
+			throw new IllegalArgumentException("bound must be positive");
+
+		long product = (nextBits() & 0xFFFFFFFFL) * bound;
+		long low = product & 0xFFFFFFFFL;
+
+		/* The results whose low bits are below 2^32 mod bound are drawn once more often
+		   than the others, so they are redrawn.
+		 */
+		if (low < bound) {
+			long threshold = (0x100000000L - bound) % bound;
+
+			while (low < threshold) {
+				product = (nextBits() & 0xFFFFFFFFL) * bound;
+				low = product & 0xFFFFFFFFL;
+			}
+		}
+
+		return (int) (product >>> 32);
+	}
+
+
+	/* Start the sequence of numbers of a seed. The state is the seed mixed (with the
+	   SplitMix64 finalizer, a bijection) with 0 and with 1, which differ, so they are
+	   never both 0. This is called by the constructor of Random, before the fields of
+	   this class are initialized, so the buffer is made here.
+	 */
+	public synchronized void setSeed (long seed) {
+		s0 = SplitMix64.mix(seed, 0);
+		s1 = SplitMix64.mix(seed, 1);
+
+		if (buffer == null)
+			buffer = new int [BUFFER_SIZE];
+
+		position = BUFFER_SIZE;
+	}
+
+
+	/* Construct a generator with the given seed.
+	 */
+	public FastRandom (long seed) {
+		super(seed);
+	}
+} /* FastRandom */
@@ -4,24 +4,43 @@
  */
 
 import java.lang.Math;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 class Game {
 	private Random r;		  			/* Random number generator. 		             	*/
-	private final int duration = 5400; 	/* Each game has 'duration' number of plays.      	*/
+	private Random coin;				/* Decides between equidistant players.				*/
+	private Random team1KickRandom;		/* Draws the kicks of team1.						*/
+	private Random team2KickRandom;		/* Draws the kicks of team2.						*/
+	private Random [] team1MoveRandom;	/* Draw the moves of each player of team1.			*/
+	private Random [] team2MoveRandom;	/* Draw the moves of each player of team2.			*/
+	private int tick;					/* Current tick of the game, -1 before the first.	*/
+	private boolean parallelMoves;		/* Move the players in parallel.					*/
+	private Player [] allPlayers;		/* Players of both teams, team1's first.			*/
+	private Random [] allMoveRandom;	/* Draw the moves of each of allPlayers.			*/
+	private Point2D [] proposals;		/* Proposed position of each of allPlayers, or null.*/
+	private long [] claims;				/* Proposed positions, as (cell << playerBits | player).*/
+	private int playerBits;				/* Low bits of a claim that hold the player.		*/
+	private int [] attemptCounts;		/* Proposed moves of each of allPlayers.			*/
+	static final int DURATION = 5400; 	/* Each game has DURATION number of plays.      	*/
 	private Team team1, team2;	  		/* Each game has 2 teams. 			     			*/
 	private Ball ball;		  			/* Each game has 1 ball. 			     			*/	
 	private Pitch pitch;		 		/* Each game is played on a single 2D pitch.       	*/
-	private int shortHorizontalKick;  	/* Length of a short horizontal (X axis) kick.    	*/
-	private int shortVerticalKick;    	/* Length of a short vertical (Y axis) kick.       	*/
+	private BallPhysics physics;		/* Keeps the ball in bounds and detects goals.		*/
 	private int longHorizontalKick;   	/* Length of a long  horizontal (X axis) kick.    	*/
 	private int longVerticalKick;	  	/* Length of a long vertical (X axis) kick.        	*/
-	private int maxX;		  			/* Maximum X pitch coordinate.                     	*/
-	private int maxY;		  			/* Maximum Y pitch coordinate.		     			*/
-	private int minX;		  			/* Minimum X pitch coordinate.                     	*/
-	private int minY;		  			/* Minimum Y pitch coordinate.                     	*/
+	private KickModel team1Kicks;		/* Kick model of the first team.					*/
+	private KickModel team2Kicks;		/* Kick model of the second team.					*/
+	private int [] team1KickLengths;	/* Maximum length of each of team1's kick types.	*/
+	private int [] team2KickLengths;	/* Maximum length of each of team2's kick types.	*/
+	private boolean [] team1Exclusive;	/* Team1 players whose roaming region overlaps no 
+										   other player's region. 							*/
+	private boolean [] team2Exclusive;	/* Team2 players whose roaming region overlaps no
+										   other player's region.							*/
 	private int team1Score; 	  		/* Score of first team.			     				*/
 	private int team2Score;	  	  		/* Score of second team.			     			*/
+	private GameAnimator animator;		/* Animates the game while it is played, or null.	*/
 
 
 	/* Returns the home team's (team1) name. Used for printing purposes.
@@ -42,6 +61,27 @@ class Game {
 	}
 
 
+	/* Returns the home team (team1).
+	 */
+	Team getTeam1 () {
+		return team1;
+	}
+
+
+	/* Returns the away team (team2).
+	 */
+	Team getTeam2 () {
+		return team2;
+	}
+
+
+	/* Returns the ball of the game.
+	 */
+	Ball getBall () {
+		return ball;
+	}
+
+
 	/* Returns the home team's (team1) score.
 	 */
 	public int getTeam1Score () {
@@ -101,19 +141,17 @@ class Game {
 
 	/* Move a player to a new position in his roaming coordinates. 
 	 */
-	private Point2D findNewPlayerPosition (Player player) {
+	private Point2D findNewPlayerPosition (Player player, Random moves) {
 		assert player != null : "Null player passed to findNewPlayerPosition().";
 
-		Point2D [] roaming = player.getRoamingCoordinates();
+		int x1 = player.getRoamingX1();
+		int y1 = player.getRoamingY1();
 		
-		int x1 = roaming[0].getX();
-		int y1 = roaming[0].getY();
-		
-		int x4 = roaming[3].getX();
-		int y4 = roaming[3].getY();
+		int x4 = player.getRoamingX4();
+		int y4 = player.getRoamingY4();
 
-		int newx = x1 + r.nextInt(x4-x1+1);
-		int newy = y1 + r.nextInt(y4-y1+1);
+		int newx = x1 + moves.nextInt(x4-x1+1);
+		int newy = y1 + moves.nextInt(y4-y1+1);
 		Point2D newPosition = new Point2D(newx, newy);
 
 		assert (x1 <= newx && newx <= x4 && y1 <= newy && newy <= y4) : "New position is out of roaming range.";
@@ -129,27 +167,54 @@ class Game {
 		assert (currentPosition != null && newPosition != null) : "Null point passed to tryMovePlayer().";
 		assert player != null : "Null player passed to tryMovePlayer().";
 		
-		if(pitch.isNull(newPosition)) {
+		if(pitch.isNull(newPosition))
+			movePlayer(currentPosition, newPosition, player);
+	}
+
+
+	/* Move the player to the new position, which must be available. The player's current
+	   position is only cleared if the player is there; before his first move of a game,
+	   the player's position is left over from his previous game and may be occupied by
+	   another player on this pitch.
+	 */
+	private void movePlayer (Point2D currentPosition, Point2D newPosition, Player player) {
+		if (pitch.getObject(currentPosition) == player)
 			pitch.setCoordinates(currentPosition, null);
-			pitch.setCoordinates(newPosition, player);
-			player.setCoordinates(newPosition);
-		}
+
+		pitch.setCoordinates(newPosition, player);
+		player.setCoordinates(newPosition);
 	}
 
 
 	/* Try to move each player on the team to a new position in their roaming 
 	   area. A player stays put if there is another player already in his    
-       proposed new position.						  
+       proposed new position. A player whose roaming area overlaps no other
+	   player's area (exclusive[i] is true) can never find his new position
+	   occupied, so he moves without checking the pitch.
 	*/
-	private void movePlayers (Team team) {
+	private void movePlayers (Team team, boolean [] exclusive, Random [] moves) {
 		assert team != null : "Null team passed to movePlayers().";
 
 		int tsize = team.getSize();
+		int attempts = 0;
+		int rejected = 0;
 
 		for (int i=0; i < tsize; i++) {
 			Player player = team.getPlayer(i);
 			Point2D currentPosition = player.getCoordinates();
-			Point2D newPosition = findNewPlayerPosition(player); 
+			if (Settings.CRN)
+				((StreamRandom) moves[i]).reset(tick);
+
+			Point2D newPosition = findNewPlayerPosition(player, moves[i]); 
+
+			if (exclusive[i]) {
+				assert pitch.isNull(newPosition) || pitch.getObject(newPosition) == player : 
+					"Exclusive roaming region is occupied by another player.";
+
+				movePlayer(currentPosition, newPosition, player);
+				attempts++;
+				continue;
+			}
 
 			/* Try to find a new position that does not conflict
 			   with the position of other players.
@@ -158,10 +223,110 @@ class Game {
 			int attempt = 0;
 			
 			while(!pitch.isNull(newPosition) && ++attempt < maxTries)
-				newPosition = findNewPlayerPosition(player); 
+				newPosition = findNewPlayerPosition(player, moves[i]); 
+
+			/* Every attempt but the last one was rejected. The last one is
+			   rejected as well if it did not find an available position.
+			 */
+			if (Settings.METRICS) {
+				attempts += pitch.isNull(newPosition) ? attempt + 1 : attempt;
+				rejected += attempt;
+			}
 	
 			tryToMovePlayer(currentPosition, newPosition, player);
 		}
+
+		Metrics.moves(attempts, rejected);
+	}
+
+
+	/* Move the players of both teams, one at a time or in parallel.
+	 */
+	private void movePlayers () {
+		if (parallelMoves)
+			movePlayersInParallel();
+		else {
+			movePlayers(team1, team1Exclusive, team1MoveRandom);
+			movePlayers(team2, team2Exclusive, team2MoveRandom);
+		}
+	}
+
+
+	/* Move the players of both teams in two phases. First, every player proposes a new 
+	   position, in parallel, drawing from his own random number stream, and retrying (as
+	   in movePlayers()) while the proposed position is occupied on the pitch, which is
+	   not changed during this phase. Then, the proposals are sorted by position, in 
+	   parallel, and when several players propose the same position, the first of them
+	   (team1's players before team2's, in player order) gets it. The winners move at
+	   once, in parallel: their new positions are distinct and were free, so no two 
+	   winners write the same cell (a pitch that cannot be written by several threads,
+	   e.g., a SparsePitch, is written by one). Since neither phase depends on the order
+	   in which the threads run, neither do the results.
+	 */
+	private void movePlayersInParallel () {
+		final int n = allPlayers.length;
+
+		IntStream.range(0, n).parallel().forEach(i -> {
+			Player player = allPlayers[i];
+			Random moves = allMoveRandom[i];
+			((StreamRandom) moves).reset(tick);
+
+			final int maxTries = player.getTeam().getSize();
+			int attempt = 0;
+			Point2D newPosition = findNewPlayerPosition(player, moves);
+
+			while (!pitch.isNull(newPosition) && ++attempt < maxTries)
+				newPosition = findNewPlayerPosition(player, moves);
+
+			if (pitch.isNull(newPosition)) {
+				proposals[i] = newPosition;
+				attemptCounts[i] = attempt + 1;
+			} else {
+				proposals[i] = null;
+				attemptCounts[i] = attempt;
+			}
+		});
+
+		int numClaims = 0;
+
+		for (int i=0; i < n; i++)
+			if (proposals[i] != null) {
+				long cell = (long) proposals[i].getX() * pitch.getPitchLength() + proposals[i].getY();
+				claims[numClaims++] = (cell << playerBits) | i;
+			}
+
+		Arrays.parallelSort(claims, 0, numClaims);
+
+		final int m = numClaims;
+		IntStream moving = IntStream.range(0, m);
+
+		if (pitch.supportsConcurrentWrites())
+			moving = moving.parallel();
+
+		moving.forEach(k -> {
+			if (k > 0 && (claims[k] >>> playerBits) == (claims[k-1] >>> playerBits))
+				return;
+
+			int i = (int) (claims[k] & ((1L << playerBits) - 1));
+			movePlayer(allPlayers[i].getCoordinates(), proposals[i], allPlayers[i]);
+		});
+
+		if (Settings.METRICS) {
+			int attempts = 0;
+
+			for (int i=0; i < n; i++)
+				attempts += attemptCounts[i];
+
+			/* Every attempt but the winning ones was rejected.
+			 */
+			int winners = 0;
+
+			for (int k=0; k < m; k++)
+				if (k == 0 || (claims[k] >>> playerBits) != (claims[k-1] >>> playerBits))
+					winners++;
+
+			Metrics.moves(attempts, attempts - winners);
+		}
 	}
 
 	
@@ -169,17 +334,8 @@ class Game {
 	   within the pitch bounds. If (x,y) is out of bounds, reposition the ball to 
 	   be in bounds. 
 	 */
-	private void setNewBallCoordinates (int x, int y) {
-		int newx = x;
-		int newy = y;
-
-		if (newx < minX) newx = minX;
-		if (newx > maxX) newx = maxX;	
-		if (newy < minY) newy = minY;
-		if (newy > maxY) newy = maxY;	
-
-		Point2D newBallPosition = new Point2D(newx, newy);		
-		ball.setCoordinates(newBallPosition); 
+	private void setNewBallCoordinates (int x, int y, Team kickers) {
+		physics.kick(ball, x, y, kickers);
 	}
 
 
@@ -187,54 +343,39 @@ class Game {
 	   of kick is always forward and may be short or long, narrow or wide, depending
 	   on the x and y values returned by the random number generator.
 	 */
-    private void goalkeeperKick (int direction) {
+    private void goalkeeperKick (int direction, Team kickers, Random kickRandom) {
     	assert (direction == 1 || direction == -1) : "Invalid direction.";
 
         Point2D  currentBallPosition = ball.getCoordinates();
         int x = currentBallPosition.getX();
         int y = currentBallPosition.getY();
-        int newx = x + direction * r.nextInt(longHorizontalKick);
-        int newy = y + direction * r.nextInt(longVerticalKick);
+        int newx = x + direction * kickRandom.nextInt(longHorizontalKick);
+        int newy = y + direction * kickRandom.nextInt(longVerticalKick);
 
-        setNewBallCoordinates (newx, newy);
+        setNewBallCoordinates (newx, newy, kickers);
 	}
 
 
 	/* Ball is kicked to a new position on the pitch by a player who is not a 
 	   goal keeper. The choice of kick (short, long, forward, backward, left, right) 
-	   depends on a specified distribution.					       
+	   is drawn from the kick model of the player's team, and the length of the kick
+	   is drawn uniformly up to the kick type's precomputed maximum length.
 	*/
-	private void kick (int direction) {
+	private void kick (int direction, Team kickers, KickModel kicks, int [] kickLengths, Random kickRandom) {
 		assert (direction == 1 || direction == -1) : "Invalid direction.";
 		
 		Point2D  currentBallPosition = ball.getCoordinates();
 		int x = currentBallPosition.getX();
 		int y = currentBallPosition.getY();
-		int newx = x;
-		int newy = y;
-
-		int kickType  = r.nextInt(100);
-		assert (0 <= kickType && kickType < 100) : "Invalid probability " + kickType;
-
-		if (0 <= kickType && kickType < 5) { 						/* long back pass, 5%*/
-			newy = y - direction * r.nextInt(longVerticalKick);
-		} else if (5 <= kickType && kickType < 10) {  				/* long left pass, 5% */
-			newx = x - direction * r.nextInt(longHorizontalKick);
-		} else if (10 <= kickType && kickType < 30) {				/* short left pass, 20% */
-			newx = x - direction * r.nextInt(shortHorizontalKick);
-		} else if (30 <= kickType && kickType < 50) {				/* short forward pass, 20% */
-			newy = y + direction * r.nextInt(shortVerticalKick);
-		} else if (50 <= kickType && kickType < 65) {				/* long forward pass, 15% */
-			newy = y + direction * r.nextInt(longVerticalKick);
-		} else if (65 <= kickType && kickType < 85) {				/* short right pass, 20% */
-			newx = x + direction * r.nextInt(shortHorizontalKick);
-		} else if (85 <= kickType && kickType < 90) {				/* long right cross pass, 5% */
-			newx = x + direction * r.nextInt(longHorizontalKick);
-		} else if (90 <= kickType && kickType < 100) {				/* short back pass, 10% */
-			newy = y - direction * r.nextInt(shortVerticalKick);
-		}
 
-		setNewBallCoordinates (newx, newy);
+		int kickType = kicks.sample(kickRandom);
+		assert (0 <= kickType && kickType < kickLengths.length) : "Invalid kick type " + kickType;
+
+		int length = direction * kickRandom.nextInt(kickLengths[kickType]);
+		int newx = x + kicks.getDeltaX(kickType) * length;
+		int newy = y + kicks.getDeltaY(kickType) * length;
+
+		setNewBallCoordinates (newx, newy, kickers);
 	}
 
 
@@ -242,13 +383,14 @@ class Game {
 	   re-start the game after a goal is scored.     
 	*/
 	private void kickOff () {
+		long start = Metrics.start();
 		int x = pitch.getPitchWidth()/2;
 		int y = pitch.getPitchLength()/2;
-		Point2D center = new Point2D(x,y);
 		
-		ball.setCoordinates(center);
-		movePlayers(team1);
-		movePlayers(team2);
+		ball.setCoordinates(x, y);
+		movePlayers();
+
+		Metrics.stop(Metrics.KICK_OFF, start);
 	}
 
 
@@ -259,29 +401,49 @@ class Game {
 	   regions and play resumes.
 	 */
 	private void play () {
+		Player interceptor = null;
+
+		tick = -1;
 		kickOff();
 
-		for(int i=0; i < duration; i++) {
-			Player p1 = getNearestPlayerToBall(team1);
-			Player p2 = getNearestPlayerToBall(team2);
+		for(int i=0; i < DURATION; i++) {
+			Metrics.tick();
+			tick = i;
 
+			long start = Metrics.start();
 			Player nearestPlayer;
-			Point2D ballXY = ball.getCoordinates();
-			
-			if(getDistance(p1.getCoordinates(), ballXY) < getDistance(p2.getCoordinates(), ballXY)) {
-				/* Player 1 is closer to the ball */
-				nearestPlayer = p1;
-			} else if (getDistance(p1.getCoordinates(), ballXY) > getDistance(p2.getCoordinates(), ballXY)) {
-				/* Player 2 is closer to the ball */
-				nearestPlayer = p2;
+
+			/* A player who intercepted the last kick is in possession, wherever the
+			   player has moved since.
+			 */
+			if (interceptor != null) {
+				nearestPlayer = interceptor;
 			} else {
-				/* flip a coin to determine who wins the ball because players are equidistant to the ball.
-				 */
-				int whoGetsIt = r.nextInt(2);
-				if (whoGetsIt == 0) 
+				Player p1 = getNearestPlayerToBall(team1);
+				Player p2 = getNearestPlayerToBall(team2);
+
+				Point2D ballXY = ball.getCoordinates();
+			
+				if(getDistance(p1.getCoordinates(), ballXY) < getDistance(p2.getCoordinates(), ballXY)) {
+					/* Player 1 is closer to the ball */
 					nearestPlayer = p1;
-				else nearestPlayer = p2; 
+				} else if (getDistance(p1.getCoordinates(), ballXY) > getDistance(p2.getCoordinates(), ballXY)) {
+					/* Player 2 is closer to the ball */
+					nearestPlayer = p2;
+				} else {
+					/* flip a coin to determine who wins the ball because players are equidistant to the ball.
+					 */
+					if (Settings.CRN)
+						((StreamRandom) coin).reset(tick);
+
+					int whoGetsIt = coin.nextInt(2);
+					if (whoGetsIt == 0) 
+						nearestPlayer = p1;
+					else nearestPlayer = p2; 
+				}
 			}
+
+			Metrics.stop(Metrics.NEAREST, start);
 			
 			/* Increment a variable to keep track of number of times a player 
 			   touches the ball.
@@ -296,13 +458,27 @@ class Game {
 			if (nearestPlayer.getTeam() == team2) 
 				direction = -1;
 
+			start = Metrics.start();
+
+			if (Settings.CRN) {
+				((StreamRandom) team1KickRandom).reset(tick);
+				((StreamRandom) team2KickRandom).reset(tick);
+			}
+
 			if (nearestPlayer.isGoalkeeper()){
-				goalkeeperKick(direction);
+				goalkeeperKick(direction, nearestPlayer.getTeam(), (direction == 1) ? team1KickRandom : team2KickRandom);
+			} else if (direction == 1) {
+				kick(direction, team1, team1Kicks, team1KickLengths, team1KickRandom);
 			} else {
-				kick(direction);
+				kick(direction, team2, team2Kicks, team2KickLengths, team2KickRandom);
 			}
 
-			int goal = pitch.inGoal(ball);
+			Metrics.stop(Metrics.KICK, start);
+			interceptor = physics.getInterceptor();
+
+			start = Metrics.start();
+			int goal = physics.inGoal(ball);
+			Metrics.stop(Metrics.IN_GOAL, start);
 
 			/* Has a goal been scored? 
 			 */
@@ -313,6 +489,7 @@ class Game {
 					else
 						nearestPlayer.incrementGoals();
 					team2Score++;
+					interceptor = null;
 					kickOff();
 					break;
 				case 2: /* ball is in team2's goal */
@@ -321,21 +498,151 @@ class Game {
 					else
 						nearestPlayer.incrementGoals();
 					team1Score++;
+					interceptor = null;
 					kickOff();
 					break;
 				default: 
 					/* Move the players within their roaming area. */
-					movePlayers(team1);
-					movePlayers(team2);
+					start = Metrics.start();
+					movePlayers();
+					Metrics.stop(Metrics.MOVE_PLAYERS, start);
 					break;
 			}
+
+			if (animator != null)
+				animator.offer(this, tick);
 		} 	
 	}
 
 
+	/* Decide whether the players are moved in parallel, and if so, allocate the arrays
+	   of the parallel moves.
+	 */
+	private void setUpParallelMoves () {
+		int size1 = team1.getSize();
+		int n = size1 + team2.getSize();
+
+		parallelMoves = Settings.PARALLEL_MOVES > 0 && n >= Settings.PARALLEL_MOVES;
+
+		if (!parallelMoves)
+			return;
+
+		allPlayers = new Player[n];
+
+		for (int i=0; i < n; i++)
+			allPlayers[i] = (i < size1) ? team1.getPlayer(i) : team2.getPlayer(i - size1);
+
+		/* A claim holds the cell of a proposed position above the index of its player, in
+		   as few bits as the players need, so the cells of a very large pitch fit too.
+		 */
+		long cells = (long) pitch.getPitchWidth() * pitch.getPitchLength();
+		playerBits = 32 - Integer.numberOfLeadingZeros(n - 1);
+
+		if (64 - Long.numberOfLeadingZeros(cells - 1) + playerBits > 64)
+			Quit.now("The pitch is too large to move " + n + " players in parallel.");
+
+		proposals = new Point2D[n];
+		claims = new long[n];
+		attemptCounts = new int[n];
+	}
+
+
+	/* Set up the random number streams of the game. With common random numbers (see the
+	   Settings class), the coin, the kicks of each team and the moves of each player get
+	   streams of their own, keyed from the game's generator and restarted at every tick,
+	   so a change in one team's strategy does not shift the random numbers that the other
+	   team, the other players, or later ticks draw. Players that are moved in parallel
+	   also get streams of their own, so that their moves do not depend on the order in
+	   which the threads draw them. Otherwise every stream is the game's generator.
+	 */
+	private void setRandomStreams () {
+		team1MoveRandom = new Random[team1.getSize()];
+		team2MoveRandom = new Random[team2.getSize()];
+
+		if (!Settings.CRN && !parallelMoves) {
+			coin = team1KickRandom = team2KickRandom = r;
+			Arrays.fill(team1MoveRandom, r);
+			Arrays.fill(team2MoveRandom, r);
+			return;
+		}
+
+		long base = r.nextLong();
+
+		if (Settings.CRN) {
+			coin = new StreamRandom(SplitMix64.mix(base, 0));
+			team1KickRandom = new StreamRandom(SplitMix64.mix(base, 1));
+			team2KickRandom = new StreamRandom(SplitMix64.mix(base, 2));
+		} else
+			coin = team1KickRandom = team2KickRandom = r;
+
+		for (int i=0; i < team1MoveRandom.length; i++)
+			team1MoveRandom[i] = new StreamRandom(SplitMix64.mix(base, (1L << 32) + i));
+
+		for (int i=0; i < team2MoveRandom.length; i++)
+			team2MoveRandom[i] = new StreamRandom(SplitMix64.mix(base, (2L << 32) + i));
+
+		if (parallelMoves) {
+			allMoveRandom = new Random[allPlayers.length];
+			System.arraycopy(team1MoveRandom, 0, allMoveRandom, 0, team1MoveRandom.length);
+			System.arraycopy(team2MoveRandom, 0, allMoveRandom, team1MoveRandom.length, team2MoveRandom.length);
+		}
+	}
+
+
+	/* Find the players of both teams whose roaming region (for this game's home and
+	   away sides) overlaps the region of no other player of either team. 
+	 */
+	private void findExclusivePlayers () {
+		int size1 = team1.getSize();
+		int size2 = team2.getSize();
+		int n = size1 + size2;
+		int [] x1 = new int[n];
+		int [] y1 = new int[n];
+		int [] x4 = new int[n];
+		int [] y4 = new int[n];
+
+		for (int i=0; i < n; i++) {
+			Player player = (i < size1) ? team1.getPlayer(i) : team2.getPlayer(i - size1);
+			x1[i] = player.getRoamingX1();
+			y1[i] = player.getRoamingY1();
+			x4[i] = player.getRoamingX4();
+			y4[i] = player.getRoamingY4();
+		}
+
+		boolean [] exclusive = RoamingGeometry.findExclusive(x1, y1, x4, y4);
+
+		team1Exclusive = Arrays.copyOfRange(exclusive, 0, size1);
+		team2Exclusive = Arrays.copyOfRange(exclusive, size1, n);
+	}
+
+
 	/* Construct and initialize a game.
 	 */
 	public Game (Team t1, Team t2, Ball b, Pitch p) {
+		this(t1, t2, b, p, FastRandom.create(new Random().nextLong()), null);
+	}
+
+
+	/* Construct and initialize a game whose random numbers are drawn from a generator
+	   with the given seed.
+	 */
+	public Game (Team t1, Team t2, Ball b, Pitch p, long seed) {
+		this(t1, t2, b, p, FastRandom.create(seed), null);
+	}
+
+
+	/* Construct and initialize a game whose random numbers are drawn from a generator
+	   with the given seed, and which is animated while it is played.
+	 */
+	public Game (Team t1, Team t2, Ball b, Pitch p, long seed, GameAnimator newAnimator) {
+		this(t1, t2, b, p, FastRandom.create(seed), newAnimator);
+	}
+
+
+	/* Construct and initialize a game whose random numbers are drawn from the random 
+	   number generator newRandom, and which is animated by newAnimator, unless it is null.
+	 */
+	private Game (Team t1, Team t2, Ball b, Pitch p, Random newRandom, GameAnimator newAnimator) {
 		assert t1 != null && t2 != null : "Null team passed to Game().";
 		assert b != null : "Null ball passed to Game().";
 		assert p != null : "Null pitch passed to Game().";
@@ -344,7 +651,8 @@ class Game {
 		team2 = t2;
 		pitch = p;
 		ball = b;
-		r = new Random();
+		r = newRandom;
+		animator = newAnimator;
 
 		/* Team 1 and Team 2 are assigned goals and roaming coordinates.
 		   The roaming coordinates have to be set after the goals are 
@@ -363,18 +671,23 @@ class Game {
 		team2.setGoal(2);
 		team2.setPlayersRoamingCoordinates();
 
-		/* Initialize class variables to define what short and long 
-		   vertical and horizontal kicks are in terms of the pitch size.   
+		/* Initialize class variables to define what long vertical and horizontal 
+		   goal keeper kicks are in terms of the pitch size. The kicks of the other 
+		   players are defined by the kick model of each team.
 		 */
-		shortHorizontalKick = pitch.getPitchWidth()/10;
 		longHorizontalKick = pitch.getPitchWidth()/5;
-		shortVerticalKick = pitch.getPitchLength()/20;
 		longVerticalKick = pitch.getPitchLength()/10;
 
-		maxY = pitch.getPitchLength() - 1;
-		maxX = pitch.getPitchWidth() - 1;
-		minX = 0;
-		minX = 0;
+		team1Kicks = team1.getKickModel();
+		team2Kicks = team2.getKickModel();
+		team1KickLengths = team1Kicks.getKickLengths(pitch.getPitchWidth(), pitch.getPitchLength());
+		team2KickLengths = team2Kicks.getKickLengths(pitch.getPitchWidth(), pitch.getPitchLength());
+
+		physics = new BallPhysics(pitch);
+
+		findExclusivePlayers();
+		setUpParallelMoves();
+		setRandomStreams();
 
 		/* set the initial score to 0-0 
 		 */
@@ -384,8 +697,15 @@ class Game {
 		/* Position the players of each team on the pitch, based on 
 		   their roaming area. Then start the game.				    
 		 */
+		long allocated = Metrics.allocated();
+
 		kickOff();
 		play();
+
+		if (animator != null)
+			animator.finish(this);
+
+		Metrics.game(allocated);
 	}
 
 } /* Game */
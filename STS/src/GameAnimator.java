@@ -0,0 +1,270 @@
+/* A class that animates a game in a terminal, while it is played:
+
+	java STS -animate attributes.txt [home away]
+
+   Printer.pitchWithPlayers() prints every position of the pitch for every state, which
+   is far too slow to watch a game. An animator instead keeps the screen it last drew,
+   and draws a new state by moving the cursor (with ANSI escape codes) to the cells that
+   changed, e.g., those of the players that moved and of the ball, in a single write.
+
+   The game offers its state to the animator after every tick. The screen is drawn by a
+   separate render thread, and the game never waits for it: a state is only copied, into
+   a snapshot of the positions of the ball and the players, when a frame is due (at most
+   Settings.ANIMATE_FPS frames per second) and the render thread has released the
+   snapshot it last took. Otherwise, the state is skipped. Copying a snapshot takes time
+   proportional to the number of players, so drawing never slows down the simulation.
+   For the game to be watchable, the animate mode paces it to Settings.ANIMATE_TPS ticks
+   per second.
+
+   A pitch larger than the screen (Settings.ANIMATE_COLUMNS x Settings.ANIMATE_ROWS) is
+   scaled down to it. As in Printer.pitchWithPlayers(), the ball is drawn as '*', players
+   as the id of their team, and free cells as '-'.
+ */
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+class GameAnimator {
+	private static final int HEADER = 3;				/* Tick, scores and ball in a snapshot.	*/
+	private static final String ESC = "\033[";			/* Start of an ANSI escape code.		*/
+
+	private int pitchWidth;								/* Width of the pitch.					*/
+	private int pitchLength;							/* Length of the pitch.					*/
+	private int columns;								/* Columns of the drawn pitch.			*/
+	private int rows;									/* Rows of the drawn pitch.				*/
+	private char [] ids;								/* Team id of each snapshot player.		*/
+	private String status;								/* Names of the teams, for the status.	*/
+	private AtomicReference<int[]> free;				/* Snapshot the game may fill, or null.	*/
+	private AtomicReference<int[]> ready;				/* Filled snapshot to draw, or null.	*/
+	private volatile boolean finished;					/* True when the game is over.			*/
+	private Thread renderer;							/* Thread that draws the frames.		*/
+	private long frameInterval;							/* Least time between frames (ns).		*/
+	private long tickInterval;							/* Least time between ticks (ns).		*/
+	private long nextFrame;								/* Earliest time of the next frame.		*/
+	private long nextTick;								/* Earliest time of the next tick.		*/
+	private int offered;								/* Number of states offered.			*/
+	private int drawn;									/* Number of frames drawn.				*/
+	private char [] screen;								/* Drawn cells of the pitch.			*/
+	private char [] frame;								/* Cells of the frame being drawn.		*/
+	private String drawnStatus;							/* Drawn status line.					*/
+	private StringBuilder out;							/* Escape codes of the frame.			*/
+	private PrintStream terminal;						/* Stream to the terminal.				*/
+
+
+	/* Copy the positions of the ball and the players of a game into a snapshot.
+	 */
+	private void copy (Game game, int tick, int [] snapshot) {
+		Team team1 = game.getTeam1();
+		Team team2 = game.getTeam2();
+		Point2D ball = game.getBall().getCoordinates();
+
+		snapshot[0] = tick;
+		snapshot[1] = (game.getTeam1Score() << 16) | game.getTeam2Score();
+		snapshot[2] = (ball.getX() << 16) | ball.getY();
+
+		int k = HEADER;
+
+		for (int i=0; i < team1.getSize(); i++) {
+			Point2D position = team1.getPlayer(i).getCoordinates();
+			snapshot[k++] = (position.getX() << 16) | position.getY();
+		}
+
+		for (int i=0; i < team2.getSize(); i++) {
+			Point2D position = team2.getPlayer(i).getCoordinates();
+			snapshot[k++] = (position.getX() << 16) | position.getY();
+		}
+	}
+
+
+	/* Offer the state of a game after a tick. The state is copied for the render thread
+	   if a frame is due and the render thread is ready for it, and skipped otherwise.
+	   Then wait, if the game is paced, until its next tick is due.
+	 */
+	public void offer (Game game, int tick) {
+		assert game != null : "Null game passed to offer().";
+
+		offered++;
+		long now = System.nanoTime();
+
+		if (now >= nextFrame) {
+			int [] snapshot = free.getAndSet(null);
+
+			if (snapshot != null) {
+				copy(game, tick, snapshot);
+				ready.set(snapshot);
+				LockSupport.unpark(renderer);
+				nextFrame = now + frameInterval;
+			}
+		}
+
+		if (tickInterval > 0) {
+			nextTick = Math.max(nextTick + tickInterval, now);
+
+			while ((now = System.nanoTime()) < nextTick)
+				LockSupport.parkNanos(nextTick - now);
+		}
+	}
+
+
+	/* Draw the final state of a game, wait for the render thread to draw it, and leave
+	   the cursor below the pitch.
+	 */
+	public void finish (Game game) {
+		assert game != null : "Null game passed to finish().";
+
+		int [] snapshot;
+
+		while ((snapshot = free.getAndSet(null)) == null)
+			Thread.yield();
+
+		copy(game, Game.DURATION, snapshot);
+		ready.set(snapshot);
+		finished = true;
+		LockSupport.unpark(renderer);
+
+		try {
+			renderer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		System.err.printf("Drew %d of %d states.\n", drawn, offered + 1);
+	}
+
+
+	/* Draw the frames handed over by the game until it is finished.
+	 */
+	private void render () {
+		terminal.print(ESC + "2J" + ESC + "?25l");
+
+		while (true) {
+			/* The game hands over its last snapshot before it sets finished, so finished
+			   is read first: if it was set and no snapshot is ready, the last one has
+			   been drawn.
+			 */
+			boolean over = finished;
+			int [] snapshot = ready.getAndSet(null);
+
+			if (snapshot == null) {
+				if (over)
+					break;
+
+				LockSupport.park(this);
+				continue;
+			}
+
+			String newStatus = layOut(snapshot);
+			free.set(snapshot);
+			draw(newStatus);
+			drawn++;
+		}
+
+		terminal.print(ESC + (rows + 2) + ";1H" + ESC + "?25h");
+		terminal.flush();
+	}
+
+
+	/* Lay out the cells of a frame from a snapshot, which may be released once this
+	   returns, and return its status line.
+	 */
+	private String layOut (int [] snapshot) {
+		Arrays.fill(frame, '-');
+
+		for (int k=HEADER; k < snapshot.length; k++)
+			frame[cell(snapshot[k])] = ids[k - HEADER];
+
+		frame[cell(snapshot[2])] = '*';
+
+		return String.format(status, snapshot[1] >>> 16, snapshot[1] & 0xFFFF, Math.max(snapshot[0], 0));
+	}
+
+
+	/* Return the screen cell of a packed pitch position.
+	 */
+	private int cell (int position) {
+		int x = position >>> 16;
+		int y = position & 0xFFFF;
+
+		return (int) ((long) y * rows / pitchLength) * columns + (int) ((long) x * columns / pitchWidth);
+	}
+
+
+	/* Write the escape codes that draw the cells of the frame that differ from the
+	   screen, and the status line if it changed, in one write.
+	 */
+	private void draw (String newStatus) {
+		out.setLength(0);
+		int cursor = -1;
+
+		for (int c=0; c < frame.length; c++) {
+			if (frame[c] == screen[c])
+				continue;
+
+			/* The cursor advances after every character, so the next cell of the same
+			   row needs no cursor move.
+			 */
+			if (c != cursor || c % columns == 0)
+				out.append(ESC).append(c / columns + 1).append(';').append(c % columns + 1).append('H');
+
+			out.append(frame[c]);
+			screen[c] = frame[c];
+			cursor = c + 1;
+		}
+
+		if (!newStatus.equals(drawnStatus)) {
+			out.append(ESC).append(rows + 1).append(";1H").append(newStatus).append(ESC).append('K');
+			drawnStatus = newStatus;
+		}
+
+		terminal.print(out);
+		terminal.flush();
+	}
+
+
+	/* Construct an animator of a game between a home team (team1) and an away team
+	   (team2) on a pitch, and start its render thread.
+	 */
+	public GameAnimator (Team team1, Team team2, Pitch pitch) {
+		assert team1 != null && team2 != null : "Null team passed to GameAnimator().";
+		assert pitch != null : "Null pitch passed to GameAnimator().";
+
+		if (pitch.getPitchWidth() > 0xFFFF || pitch.getPitchLength() > 0xFFFF)
+			Quit.now("The pitch is too large to animate.");
+
+		if (Settings.ANIMATE_FPS <= 0 || Settings.ANIMATE_COLUMNS <= 0 || Settings.ANIMATE_ROWS <= 0)
+			Quit.now("The frame rate and screen size of an animation must be positive.");
+
+		pitchWidth = pitch.getPitchWidth();
+		pitchLength = pitch.getPitchLength();
+		columns = Math.min(pitchWidth, Settings.ANIMATE_COLUMNS);
+		rows = Math.min(pitchLength, Settings.ANIMATE_ROWS);
+
+		int numPlayers = team1.getSize() + team2.getSize();
+		ids = new char [numPlayers];
+
+		for (int i=0; i < numPlayers; i++)
+			ids[i] = (i < team1.getSize()) ? team1.getId() : team2.getId();
+
+		status = team1.getName().replace("%", "%%") + " %d - %d " + team2.getName().replace("%", "%%") + "    tick %d";
+		free = new AtomicReference<int[]>(new int [HEADER + numPlayers]);
+		ready = new AtomicReference<int[]>();
+		frameInterval = 1000000000L / Settings.ANIMATE_FPS;
+		tickInterval = (Settings.ANIMATE_TPS > 0) ? 1000000000L / Settings.ANIMATE_TPS : 0;
+		nextFrame = System.nanoTime();
+		nextTick = nextFrame;
+		screen = new char [columns * rows];
+		frame = new char [columns * rows];
+		out = new StringBuilder();
+		terminal = System.out;
+
+		renderer = new Thread(new Runnable() {
+			public void run () {
+				render();
+			}
+		}, "GameAnimator");
+		renderer.setDaemon(true);
+		renderer.start();
+	}
+} /* GameAnimator */
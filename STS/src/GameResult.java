@@ -0,0 +1,19 @@
+/* A class that holds the final score of a game of a tournament, as it is published to
+   the subscribers of the tournament's results (see the ResultSubscriber class). The
+   teams are given by their indices in the tournament.
+ */
+
+class GameResult {
+	final int homeTeam;		/* Index of the home team.		*/
+	final int awayTeam;		/* Index of the away team.		*/
+	final int homeScore;	/* Goals of the home team.		*/
+	final int awayScore;	/* Goals of the away team.		*/
+
+
+	GameResult (int newHomeTeam, int newAwayTeam, int newHomeScore, int newAwayScore) {
+		homeTeam = newHomeTeam;
+		awayTeam = newAwayTeam;
+		homeScore = newHomeScore;
+		awayScore = newAwayScore;
+	}
+} /* GameResult */
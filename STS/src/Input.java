@@ -13,7 +13,7 @@ class Input {
  	 /* Read the entire input and store it into a single string.
 	  */
  	 public String input2String () {
-    	String input = new String("");
+    	StringBuilder input = new StringBuilder();
 
     	try {
       		while (true) {
@@ -22,14 +22,14 @@ class Input {
        			if (line == null) 
 					break;
 
-       			input = input.concat(line + "\n");
+       			input.append(line).append('\n');
    			}
    		} catch (Exception e) {
        		e.printStackTrace();
        		System.exit(1);
    		}
 
-   		return input;
+   		return input.toString();
   	}
 
 
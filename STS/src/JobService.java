@@ -0,0 +1,472 @@
+/* A class that implements a long-lived STS service that plays many tournaments at once.
+   Like the daemon (see the Daemon class), the service listens on a local (loopback)
+   socket, and each connection sends one line, with one of the commands
+
+	submit weight attributes.txt [s|st|ts|t]
+	cancel job
+	status
+
+   A submitted tournament is a job. The connection that submits it receives a line
+   "JOB id", then a line "PROGRESS id played fixtures" about every second while the job
+   is played, and then the output of the tournament, after which it is closed. A job that
+   is cancelled (or whose connection breaks) ends with a line "CANCELLED id" instead, and
+   a job whose games fail with a line "FAILED id reason". The status command returns a
+   line "id weight played fixtures" for every job that is not over.
+
+	echo "submit 1 /path/to/attributes.txt ts" | nc localhost 4713
+
+   Every fixture of a job is a task. The tasks of all jobs are played by one pool of
+   worker threads, which the jobs share in proportion to their weights, by stride
+   scheduling: every job has a pass, which grows by STRIDE / weight with every task of
+   the job that is started, and the next task is always taken from the job with the
+   lowest pass. A job starts at the pass of the last task started, so it gets its share
+   of the workers as soon as it is submitted, however many tasks the jobs before it have
+   left, but it gets no credit for the time before it was submitted. The task of a job
+   is made from its fixture number when it is taken, so a job of n teams queues its
+   n(n-1) tasks in constant memory.
+
+   A game moves the players of its teams, so two games of a team cannot be played at
+   once. Every worker plays the tasks of a job on its own copy of the job's teams, built
+   from the same attributes and roster seed (as the workers of a distributed tournament
+   do, see the Worker class), and records their results in the job's tournament, whose
+   tables are output when all of its fixtures have been played. A worker drops its copy
+   once every fixture of the job has been started.
+ */
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+class JobService {
+	private static final long STRIDE = 1 << 20;				/* Pass of a task of a job of weight 1.		*/
+	private static final int MAX_WEIGHT = 1 << 10;			/* Largest weight of a job.					*/
+	private static final long PROGRESS_INTERVAL = 1000;		/* Milliseconds between progress reports.	*/
+
+	private int port;						/* Port on which the service listens.				*/
+	private int numWorkers;					/* Number of worker threads.						*/
+	private Vector<Job> jobs;				/* Jobs that are not over, in submission order.		*/
+	private Vector<Job> queued;				/* Jobs with fixtures that have not been started.	*/
+	private int lastId;						/* Id of the last job submitted.					*/
+	private long virtualTime;				/* Pass of the last task started.					*/
+
+
+	/* Start the workers, and serve connections until the process is killed.
+	 */
+	public void run () {
+		ServerSocket server = null;
+
+		try {
+			server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		/* A bad attributes file fails its job, not the service.
+		 */
+		Quit.setRecoverable(true);
+
+		for (int w=0; w < numWorkers; w++) {
+			final int worker = w;
+			Thread thread = new Thread(new Runnable() {
+				public void run () {
+					work(worker);
+				}
+			});
+
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		while (true) {
+			try {
+				final Socket socket = server.accept();
+				Thread handler = new Thread(new Runnable() {
+					public void run () {
+						serve(socket);
+					}
+				});
+
+				handler.start();
+			} catch (IOException e) {
+				System.err.println("Service connection failed: " + e.getMessage());
+			}
+		}
+	}
+
+
+	/* Read a command from a connection and carry it out. The connection of a submitted
+	   job is kept open until the job is over.
+	 */
+	private void serve (Socket socket) {
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+			PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, "UTF-8");
+			String line = in.readLine();
+			String [] words = (line == null) ? new String [0] : line.trim().split("\\s+");
+
+			if (words.length >= 3 && words.length <= 4 && words[0].equals("submit")) {
+				if (submit(words, socket, out))
+					return;
+			} else if (words.length == 2 && words[0].equals("cancel"))
+				cancel(words[1], out);
+			else if (words.length == 1 && words[0].equals("status"))
+				status(out);
+			else
+				out.println("Usage: submit weight attributes.txt [s|st|ts|t] | cancel job | status");
+
+			out.flush();
+			socket.close();
+		} catch (IOException e) {
+			System.err.println("Service connection failed: " + e.getMessage());
+		}
+	}
+
+
+	/* Submit the job of a "submit weight attributes.txt [s|st|ts|t]" command, whose
+	   output is sent over the given connection. Return true if the job was submitted,
+	   or false (after an error has been sent) if it was not.
+	 */
+	private boolean submit (String [] words, Socket socket, PrintStream out) {
+		int weight = 0;
+		String outputSpec = (words.length == 4) ? words[3] : null;
+
+		try {
+			weight = Integer.parseInt(words[1]);
+		} catch (NumberFormatException e) {
+			/* Reported below. */
+		}
+
+		if (weight < 1 || weight > MAX_WEIGHT) {
+			out.println("The weight of a job must be between 1 and " + MAX_WEIGHT);
+			return false;
+		}
+
+		if (outputSpec != null && !outputSpec.matches("s|st|ts|t")) {
+			out.println("Usage: submit weight attributes.txt [s|st|ts|t]");
+			return false;
+		}
+
+		if (!new File(words[2]).canRead()) {
+			out.println("Cannot read " + words[2]);
+			return false;
+		}
+
+		Job job;
+
+		try {
+			job = new Job(weight, STS.readFile(words[2]), outputSpec, numWorkers, socket, out);
+		} catch (RuntimeException e) {
+			out.println("Cannot build the tournament: " + e.getMessage());
+			return false;
+		} catch (AssertionError e) {
+			out.println("Cannot build the tournament: " + e.getMessage());
+			return false;
+		}
+
+		if (job.numFixtures == 0) {
+			out.println("At least 2 teams are needed for a tournament.");
+			return false;
+		}
+
+		synchronized (this) {
+			job.id = ++lastId;
+
+			/* The id is sent before any worker can report progress.
+			 */
+			out.println("JOB " + job.id);
+			out.flush();
+
+			job.pass = virtualTime;
+			jobs.add(job);
+			queued.add(job);
+			notifyAll();
+		}
+
+		return true;
+	}
+
+
+	/* Cancel the job of a "cancel job" command. The fixtures of the job that are being
+	   played are finished, but their results are dropped.
+	 */
+	private void cancel (String id, PrintStream out) {
+		Job job = null;
+
+		synchronized (this) {
+			for (Job j : jobs)
+				if (Integer.toString(j.id).equals(id))
+					job = j;
+		}
+
+		if (job != null && end(job, "CANCELLED " + job.id))
+			out.println("CANCELLED " + job.id);
+		else
+			out.println("UNKNOWN " + id);
+	}
+
+
+	/* Send a line "id weight played fixtures" for every job that is not over.
+	 */
+	private void status (PrintStream out) {
+		Vector<Job> current;
+
+		synchronized (this) {
+			current = new Vector<Job>(jobs);
+		}
+
+		for (Job job : current) {
+			synchronized (job) {
+				out.println(job.id + " " + job.weight + " " + job.played + " " + job.numFixtures);
+			}
+		}
+	}
+
+
+	/* Play the tasks of the jobs, as worker number 'worker', for as long as the service
+	   runs.
+	 */
+	private void work (int worker) {
+		while (true) {
+			Job job = null;
+			long fixture;
+
+			synchronized (this) {
+				while (queued.isEmpty()) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+
+				/* Start the next fixture of the job with the lowest pass, the earliest
+				   submitted one among equals.
+				 */
+				for (Job j : queued)
+					if (job == null || j.pass < job.pass)
+						job = j;
+
+				fixture = job.nextFixture++;
+				virtualTime = job.pass;
+				job.pass += STRIDE / job.weight;
+
+				if (job.nextFixture == job.numFixtures)
+					queued.remove(job);
+			}
+
+			play(worker, job, fixture);
+			release(worker, job);
+		}
+	}
+
+
+	/* Drop a worker's copy of the teams of a job once every fixture of the job has been
+	   started (or the job is over), since the worker will not play the job again.
+	 */
+	private synchronized void release (int worker, Job job) {
+		if (!queued.contains(job))
+			job.replicas[worker] = null;
+	}
+
+
+	/* Play a fixture of a job on the worker's copy of its teams, and record its result.
+	   The copy is only used by this worker, so it needs no lock.
+	 */
+	private void play (int worker, Job job, long fixture) {
+		synchronized (job) {
+			if (job.over)
+				return;
+		}
+
+		int i = job.getHomeTeam(fixture);
+		int j = job.getAwayTeam(fixture);
+
+		try {
+			if (job.replicas[worker] == null)
+				job.replicas[worker] = job.replicate();
+
+			Tournament replica = job.replicas[worker];
+			Vector<Team> copies = replica.getTeams();
+			int [] score = replica.playFixture(copies.elementAt(i), copies.elementAt(j));
+
+			job.tournament.recordResult(job.teams.elementAt(i), job.teams.elementAt(j), score[0], score[1]);
+		} catch (RuntimeException e) {
+			end(job, "FAILED " + job.id + " " + e);
+			return;
+		} catch (AssertionError e) {
+			end(job, "FAILED " + job.id + " " + e.getMessage());
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		boolean finished = false;
+		boolean broken = false;
+
+		synchronized (job) {
+			if (job.over)
+				return;
+
+			job.played++;
+
+			if (job.played == job.numFixtures) {
+				finished = true;
+				job.over = true;
+				job.tournament.setOutput(job.out);
+
+				try {
+					job.tournament.outputResults();
+				} catch (RuntimeException e) {
+					job.out.println("FAILED " + job.id + " " + e);
+				} catch (AssertionError e) {
+					job.out.println("FAILED " + job.id + " " + e.getMessage());
+				}
+
+				job.close();
+			} else if (now - job.lastReport >= PROGRESS_INTERVAL) {
+				job.lastReport = now;
+				job.out.println("PROGRESS " + job.id + " " + job.played + " " + job.numFixtures);
+				job.out.flush();
+				broken = job.out.checkError();
+			}
+		}
+
+		/* A job whose submitter has gone away is not worth finishing.
+		 */
+		if (broken)
+			end(job, "CANCELLED " + job.id);
+		else if (finished)
+			remove(job);
+	}
+
+
+	/* End a job that is not over with a final message. Return false if the job was
+	   already over.
+	 */
+	private boolean end (Job job, String message) {
+		synchronized (job) {
+			if (job.over)
+				return false;
+
+			job.over = true;
+			job.out.println(message);
+			job.close();
+		}
+
+		remove(job);
+		return true;
+	}
+
+
+	/* Forget a job that is over. The job's lock is never held here, so that the service
+	   lock and a job lock are never taken in opposite orders.
+	 */
+	private synchronized void remove (Job job) {
+		jobs.remove(job);
+		queued.remove(job);
+	}
+
+
+	/* Construct a service that listens on the given local port, with the given number of
+	   worker threads.
+	 */
+	public JobService (int newPort, int newNumWorkers) {
+		assert newNumWorkers > 0 : "Non-positive number of workers passed to JobService().";
+
+		port = newPort;
+		numWorkers = newNumWorkers;
+		jobs = new Vector<Job>();
+		queued = new Vector<Job>();
+	}
+} /* JobService */
+
+
+
+/* A class that holds a tournament submitted to the service. The scheduling fields (pass
+   and nextFixture) are guarded by the service's lock, and the progress fields (played,
+   lastReport and over) by the job's lock.
+ */
+class Job {
+	int id;							/* Id of the job.										*/
+	final int weight;				/* Share of the workers, relative to the other jobs.	*/
+	final long numFixtures;			/* Number of fixtures of the tournament.				*/
+	final Tournament tournament;	/* Tournament in which the results are recorded.		*/
+	final Vector<Team> teams;		/* Teams of the tournament.								*/
+	final Tournament [] replicas;	/* Copy of the tournament of each worker, or null.		*/
+	final PrintStream out;			/* Stream to the submitter.								*/
+	long pass;						/* Pass of the job's next task.							*/
+	long nextFixture;				/* Number of the next fixture to start.					*/
+	long played;					/* Number of fixtures played.							*/
+	long lastReport;				/* Time of the last progress report.					*/
+	boolean over;					/* True if the job has finished or ended.				*/
+	private String attributes;		/* Contents of the attributes file.						*/
+	private long rosterSeed;		/* Seed from which every copy of the roster is built.	*/
+	private Socket socket;			/* Connection of the submitter.							*/
+
+
+	/* Return the home team of a fixture. The fixtures are numbered in the order in which
+	   a tournament plays them: by home team, and then by away team.
+	 */
+	int getHomeTeam (long fixture) {
+		return (int) (fixture / (teams.size() - 1));
+	}
+
+
+	/* Return the away team of a fixture.
+	 */
+	int getAwayTeam (long fixture) {
+		int j = (int) (fixture % (teams.size() - 1));
+
+		return (j >= getHomeTeam(fixture)) ? j + 1 : j;
+	}
+
+
+	/* Return a new tournament on a copy of the teams of the job.
+	 */
+	Tournament replicate () {
+		Parser parser = new Parser(attributes);
+		Vector<Team> copies = STS.buildTeams(parser, new Random(rosterSeed));
+
+		return new Tournament(copies, parser.getPitchWidth(), parser.getPitchLength(), null);
+	}
+
+
+	/* Flush the stream to the submitter and close the connection.
+	 */
+	void close () {
+		out.flush();
+
+		try {
+			socket.close();
+		} catch (IOException e) {
+			/* The submitter has gone away. */
+		}
+	}
+
+
+	/* Construct a job of the given weight that plays the tournament of an attributes
+	   file, with the given output specification, on 'numWorkers' workers.
+	 */
+	Job (int newWeight, String newAttributes, String outputSpec, int numWorkers, Socket newSocket, PrintStream newOut) {
+		weight = newWeight;
+		attributes = newAttributes;
+		rosterSeed = (Settings.SEED == null) ? new Random().nextLong() : Settings.SEED;
+		socket = newSocket;
+		out = newOut;
+
+		Parser parser = new Parser(attributes);
+		teams = STS.buildTeams(parser, new Random(rosterSeed));
+		tournament = new Tournament(teams, parser.getPitchWidth(), parser.getPitchLength(), outputSpec);
+
+		/* These teams do not play any games, so the roaming coordinates of the players,
+		   which are output for the best team, are set here.
+		 */
+		for (int i=0; i < teams.size(); i++) {
+			teams.get(i).setGoal(1);
+			teams.get(i).setPlayersRoamingCoordinates();
+		}
+
+		numFixtures = (long) teams.size() * (teams.size() - 1);
+		replicas = new Tournament [numWorkers];
+	}
+} /* Job */
@@ -0,0 +1,250 @@
+/* A class that implements the distribution of kicks made by the (non goal keeper) players
+   of a team. A kick model is a table of kick types. Each kick type has a direction (forward,
+   back, left or right, relative to the direction of play), a weight that determines how
+   often the kick is chosen, and a divisor that determines the maximum kick length as a
+   fraction of the pitch (i.e., pitch length / divisor for forward and back kicks, pitch
+   width / divisor for left and right kicks).
+
+   Kick types are drawn using a precomputed alias table (Vose's method), so a single draw
+   takes constant time regardless of the number of kick types in the table.
+ */
+
+import java.util.Random;
+import java.util.Vector;
+
+public class KickModel {
+	static final int FORWARD = 0;		/* Kick towards the opponent's goal.				*/
+	static final int BACK = 1;			/* Kick towards the team's own goal.				*/
+	static final int LEFT = 2;			/* Kick to the left of the direction of play.		*/
+	static final int RIGHT = 3;			/* Kick to the right of the direction of play.		*/
+
+	/* The default kick model, i.e., the distribution that was originally hard-coded
+	   in the Game class.
+	 */
+	static final KickModel DEFAULT = new KickModel(
+		new int [] { BACK, LEFT, LEFT, FORWARD, FORWARD, RIGHT, RIGHT, BACK },
+		new int [] {    5,    5,   20,      20,      15,    20,     5,   10 },
+		new int [] {   10,    5,   10,      20,      10,    10,     5,   20 });
+
+	private int numKicks;				/* Number of kick types in the table.				*/
+	private int [] directions;			/* Direction of each kick type.						*/
+	private int [] weights;				/* Relative weight of each kick type.				*/
+	private int [] divisors;			/* Pitch dimension divisor of each kick type.		*/
+	private int [] deltaX;				/* Unit X displacement of each kick type.			*/
+	private int [] deltaY;				/* Unit Y displacement of each kick type.			*/
+	private double [] probability;		/* Alias table: probability of keeping a column.	*/
+	private int [] alias;				/* Alias table: alternative kick of a column.		*/
+
+
+	/* Return the number of kick types in the model.
+	 */
+	public int getNumberOfKicks () {
+		return numKicks;
+	}
+
+
+	/* Return the direction of the ith kick type.
+	 */
+	public int getDirection (int i) {
+		assert (0 <= i && i < numKicks) : "Kick type out of range: " + i;
+
+		return directions[i];
+	}
+
+
+	/* Return the weight of the ith kick type.
+	 */
+	public int getWeight (int i) {
+		assert (0 <= i && i < numKicks) : "Kick type out of range: " + i;
+
+		return weights[i];
+	}
+
+
+	/* Return the divisor of the ith kick type.
+	 */
+	public int getDivisor (int i) {
+		assert (0 <= i && i < numKicks) : "Kick type out of range: " + i;
+
+		return divisors[i];
+	}
+
+
+	/* Return the X displacement (-1, 0 or 1) of the ith kick type for a team playing
+	   in direction 1. The displacement is multiplied by the direction of play.
+	 */
+	public int getDeltaX (int i) {
+		return deltaX[i];
+	}
+
+
+	/* Return the Y displacement (-1, 0 or 1) of the ith kick type for a team playing
+	   in direction 1. The displacement is multiplied by the direction of play.
+	 */
+	public int getDeltaY (int i) {
+		return deltaY[i];
+	}
+
+
+	/* Compute the maximum length of each kick type on a pitch of the given size. The
+	   lengths are computed once per game, so that kicking does not divide on every tick.
+	   Every length is at least 1, so that it can be used as a random number bound.
+	 */
+	public int [] getKickLengths (int pitchWidth, int pitchLength) {
+		int [] lengths = new int[numKicks];
+
+		for (int i=0; i < numKicks; i++) {
+			int dimension = (deltaX[i] != 0) ? pitchWidth : pitchLength;
+			lengths[i] = Math.max(1, dimension / divisors[i]);
+		}
+
+		return lengths;
+	}
+
+
+	/* Draw a kick type according to the weights of the model. A single uniform number
+	   selects both the column of the alias table and whether the column's own kick or
+	   its alias is chosen.
+	 */
+	public int sample (Random r) {
+		double u = r.nextDouble() * numKicks;
+		int column = (int) u;
+
+		if (u - column < probability[column])
+			return column;
+		else
+			return alias[column];
+	}
+
+
+	/* Convert a kick direction word, as it appears in an attributes file, to a kick
+	   direction. Returns -1 if the word is not a kick direction.
+	 */
+	static int parseDirection (String word) {
+		if (word.equals("forward"))
+			return FORWARD;
+		else if (word.equals("back"))
+			return BACK;
+		else if (word.equals("left"))
+			return LEFT;
+		else if (word.equals("right"))
+			return RIGHT;
+		else
+			return -1;
+	}
+
+
+	/* Build the alias table using Vose's method. Every column of the table holds a
+	   probability of keeping the column's own kick type and the alias kick type that is
+	   chosen otherwise.
+	 */
+	private void buildAliasTable () {
+		long totalWeight = 0;
+
+		for (int i=0; i < numKicks; i++)
+			totalWeight += weights[i];
+
+		assert totalWeight > 0 : "Kick weights must not all be zero.";
+
+		probability = new double[numKicks];
+		alias = new int[numKicks];
+
+		double [] scaled = new double[numKicks];
+		int [] small = new int[numKicks];
+		int [] large = new int[numKicks];
+		int numSmall = 0;
+		int numLarge = 0;
+
+		for (int i=0; i < numKicks; i++) {
+			scaled[i] = (double) weights[i] * numKicks / totalWeight;
+
+			if (scaled[i] < 1.0)
+				small[numSmall++] = i;
+			else
+				large[numLarge++] = i;
+		}
+
+		while (numSmall > 0 && numLarge > 0) {
+			int less = small[--numSmall];
+			int more = large[--numLarge];
+
+			probability[less] = scaled[less];
+			alias[less] = more;
+
+			scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+
+			if (scaled[more] < 1.0)
+				small[numSmall++] = more;
+			else
+				large[numLarge++] = more;
+		}
+
+		/* Whatever is left over is (up to rounding errors) exactly 1.
+		 */
+		while (numLarge > 0) {
+			int more = large[--numLarge];
+			probability[more] = 1.0;
+			alias[more] = more;
+		}
+
+		while (numSmall > 0) {
+			int less = small[--numSmall];
+			probability[less] = 1.0;
+			alias[less] = less;
+		}
+	}
+
+
+	/* Construct a kick model from a Vector of kick specifications, as produced by the
+	   Parser. Each element of the Vector is an array with exactly 3 elements: the kick
+	   direction, its weight and its divisor.
+	 */
+	public KickModel (Vector<int[]> kicks) {
+		this(column(kicks, 0), column(kicks, 1), column(kicks, 2));
+	}
+
+
+	/* Extract one column of a Vector of kick specifications.
+	 */
+	private static int [] column (Vector<int[]> kicks, int c) {
+		assert kicks != null && kicks.size() > 0 : "No kicks passed to KickModel().";
+
+		int [] values = new int[kicks.size()];
+
+		for (int i=0; i < values.length; i++)
+			values[i] = kicks.get(i)[c];
+
+		return values;
+	}
+
+
+	/* Construct and initialize a kick model.
+	 */
+	public KickModel (int [] newDirections, int [] newWeights, int [] newDivisors) {
+		assert newDirections.length == newWeights.length && newWeights.length == newDivisors.length :
+			"Kick directions, weights and divisors have unequal lengths.";
+		assert newDirections.length > 0 : "A kick model needs at least one kick.";
+
+		numKicks = newDirections.length;
+		directions = newDirections.clone();
+		weights = newWeights.clone();
+		divisors = newDivisors.clone();
+		deltaX = new int[numKicks];
+		deltaY = new int[numKicks];
+
+		for (int i=0; i < numKicks; i++) {
+			assert weights[i] >= 0 : "Negative kick weight.";
+			assert divisors[i] > 0 : "Kick divisor must be positive.";
+
+			switch (directions[i]) {
+				case FORWARD: 	deltaY[i] = 1; 	break;
+				case BACK: 		deltaY[i] = -1; break;
+				case LEFT: 		deltaX[i] = -1; break;
+				case RIGHT: 	deltaX[i] = 1; 	break;
+				default: 		assert false : "Invalid kick direction " + directions[i];
+			}
+		}
+
+		buildAliasTable();
+	}
+} /* KickModel */
@@ -0,0 +1,125 @@
+/* A class that records a distribution of latencies (in nanoseconds) in log-linear buckets,
+   in the style of HdrHistogram. Values are grouped by their highest set bit, and every such
+   group is split into 'subBuckets' linear buckets, so the relative error of any recorded
+   value is below 1/subBuckets. Recording is a few shifts and atomic updates, and the
+   histogram has a fixed size no matter how many values are recorded.
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class LatencyHistogram {
+	private static final int subBucketBits = 5;					/* log2 of the number of sub-buckets.	*/
+	private static final int subBuckets = 1 << subBucketBits;	/* Linear buckets per power of 2.		*/
+
+	private AtomicLongArray counts;		/* Number of values recorded in each bucket.		*/
+	private LongAdder total;			/* Sum of the recorded values.						*/
+	private LongAdder count;			/* Number of recorded values.						*/
+	private LongAccumulator max;		/* Largest recorded value.							*/
+
+
+	/* Return the bucket of a value. Values below subBuckets have a bucket each, larger
+	   values share a bucket with the values that agree on their 1 + subBucketBits most
+	   significant bits.
+	 */
+	private static int bucketOf (long value) {
+		if (value < subBuckets)
+			return (int) value;
+
+		int magnitude = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+		int subBucket = (int) (value >>> magnitude) - subBuckets;
+
+		return (magnitude + 1) * subBuckets + subBucket;
+	}
+
+
+	/* Return the smallest value that falls in a bucket.
+	 */
+	private static long lowestValueOf (int bucket) {
+		if (bucket < subBuckets)
+			return bucket;
+
+		int magnitude = bucket / subBuckets - 1;
+		long subBucket = bucket % subBuckets + subBuckets;
+
+		return subBucket << magnitude;
+	}
+
+
+	/* Record a value. Negative values (e.g., from a clock adjustment) are recorded as 0.
+	 */
+	public void record (long value) {
+		if (value < 0)
+			value = 0;
+
+		counts.incrementAndGet(bucketOf(value));
+		total.add(value);
+		count.increment();
+		max.accumulate(value);
+	}
+
+
+	/* Return the number of recorded values.
+	 */
+	public long getCount () {
+		return count.sum();
+	}
+
+
+	/* Return the sum of the recorded values.
+	 */
+	public long getTotal () {
+		return total.sum();
+	}
+
+
+	/* Return the mean of the recorded values, or 0 if no values have been recorded.
+	 */
+	public double getMean () {
+		long n = getCount();
+		return (n == 0) ? 0.0 : (double) getTotal() / n;
+	}
+
+
+	/* Return the largest recorded value.
+	 */
+	public long getMax () {
+		return max.get();
+	}
+
+
+	/* Return (an approximation of) the value below which a given percentage of the
+	   recorded values fall.
+	 */
+	public long getPercentile (double percentile) {
+		assert 0.0 <= percentile && percentile <= 100.0 : "Invalid percentile " + percentile;
+
+		long n = 0;
+		int numBuckets = counts.length();
+
+		for (int i=0; i < numBuckets; i++)
+			n += counts.get(i);
+
+		long rank = (long) Math.ceil(percentile / 100.0 * n);
+		long seen = 0;
+
+		for (int i=0; i < numBuckets; i++) {
+			seen += counts.get(i);
+			if (seen >= rank && seen > 0)
+				return Math.min(lowestValueOf(i), getMax());
+		}
+
+		return 0;
+	}
+
+
+	/* Construct an empty histogram that can hold any non-negative long value.
+	 */
+	public LatencyHistogram () {
+		counts = new AtomicLongArray(bucketOf(Long.MAX_VALUE) + 1);
+		total = new LongAdder();
+		count = new LongAdder();
+		max = new LongAccumulator(Math::max, 0);
+	}
+} /* LatencyHistogram */
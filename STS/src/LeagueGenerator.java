@@ -0,0 +1,143 @@
+/* A class that generates synthetic attributes files, in the grammar of the Parser, for
+   scale and load testing:
+
+	java STS -generate teams players width length [customPercent [seed]] > league.txt
+
+   A given percentage of the teams (by default 50%) get a custom strategy, with a custom
+   kick model for every other custom team, and the rest get a random strategy. Custom
+   roaming regions are drawn to satisfy Team.roamingRegionsOK(): the goal keeper's region
+   is the penalty box, and every other player's region lies within the pitch and is no
+   larger than the pitch area divided by the number of players.
+
+   The goal keeper's region must have the area of the penalty box, which holds exactly
+   only if the width of the pitch is a multiple of 6, so the width is rounded up to a
+   multiple of 6. The file is written team by team to a buffered stream, so files of any
+   size are generated in constant memory.
+ */
+
+import java.io.*;
+import java.util.Random;
+
+class LeagueGenerator {
+	private int numTeams;			/* Number of teams.								*/
+	private int numPlayers;			/* Number of players of every team.				*/
+	private int pitchWidth;			/* Width of the pitch (a multiple of 6).		*/
+	private int pitchLength;		/* Length of the pitch.							*/
+	private int customPercent;		/* Percentage of teams with a custom strategy.	*/
+	private Random r;				/* Draws the strategies.						*/
+
+	private static final String [] kickDirections = { "forward", "back", "left", "right" };
+
+
+	/* Return the name of the ith team. Team names are words of letters, so the number
+	   of the team is written in base 26 with the letters a to z.
+	 */
+	private static String teamName (int i) {
+		StringBuilder sb = new StringBuilder();
+
+		do {
+			sb.append((char) ('a' + i % 26));
+			i /= 26;
+		} while (i > 0);
+
+		return "Team " + Character.toUpperCase(sb.charAt(sb.length() - 1)) + sb.reverse().substring(1);
+	}
+
+
+	/* Write the custom roaming regions of a team.
+	 */
+	private void writeRegions (PrintWriter out) {
+		int maxPlayerArea = (pitchWidth * pitchLength) / numPlayers;
+
+		/* The goal keeper's region is the penalty box.
+		 */
+		int x1 = pitchWidth / 6;
+		out.printf("\t<region> (%d,%d) (%d,%d) <\\region>\n", x1, 0, pitchWidth - x1, pitchLength / 6);
+
+		for (int i=1; i < numPlayers; i++) {
+			int width = 1 + r.nextInt(pitchWidth - 1);
+			int maxLength = Math.min(pitchLength - 1, maxPlayerArea / width);
+			int length = r.nextInt(maxLength + 1);
+			int x = r.nextInt(pitchWidth - width);
+			int y = r.nextInt(pitchLength - length);
+
+			out.printf("\t<region> (%d,%d) (%d,%d) <\\region>\n", x, y, x + width, y + length);
+		}
+	}
+
+
+	/* Write a custom kick model.
+	 */
+	private void writeKicks (PrintWriter out) {
+		int numKicks = 1 + r.nextInt(6);
+
+		out.printf("<kicks>\n");
+
+		for (int k=0; k < numKicks; k++)
+			out.printf("\t<kick> %s %d %d <\\kick>\n", kickDirections[r.nextInt(kickDirections.length)],
+					1 + r.nextInt(30), 2 + r.nextInt(19));
+
+		out.printf("<\\kicks>\n");
+	}
+
+
+	/* Write the attributes file to a stream.
+	 */
+	public void generate (OutputStream stream) {
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stream), 1 << 16));
+
+		out.printf("<begin pitch>\n<length> %d <\\length>\n<width> %d <\\width>\n<\\end pitch>\n", pitchLength,
+				pitchWidth);
+
+		int numCustom = 0;
+
+		for (int i=0; i < numTeams; i++) {
+			out.printf("\n<begin team>\n<name> %s<\\name>\n<numberOfPlayers> %d <\\numberOfPlayers>\n", teamName(i),
+					numPlayers);
+
+			if (r.nextInt(100) < customPercent) {
+				out.printf("<strategy> custom\n");
+				writeRegions(out);
+				out.printf("<\\strategy>\n");
+
+				if (numCustom++ % 2 == 1)
+					writeKicks(out);
+			} else
+				out.printf("<strategy> random <\\strategy>\n");
+
+			out.printf("<\\end team>\n");
+		}
+
+		out.flush();
+
+		if (out.checkError())
+			Quit.now("Error writing the generated league.");
+	}
+
+
+	/* Construct a generator of a league with the given numbers of teams and players per
+	   team, on a pitch of the given size, in which customPercent of the teams have a
+	   custom strategy. The strategies are drawn from a generator with the given seed.
+	 */
+	public LeagueGenerator (int newNumTeams, int newNumPlayers, int newPitchWidth, int newPitchLength,
+			int newCustomPercent, long seed) {
+		if (newNumTeams < 2 || newNumPlayers < 2)
+			Quit.now("A league needs at least 2 teams of at least 2 players.");
+
+		/* A goal keeper kicks the ball up to a fifth of the width across and a tenth of the
+		   length along the pitch, so these must be at least one cell.
+		 */
+		if (newPitchWidth < 5 || newPitchLength < 10)
+			Quit.now("The pitch must be at least 5 wide and 10 long.");
+
+		numTeams = newNumTeams;
+		numPlayers = newNumPlayers;
+		pitchWidth = (newPitchWidth + 5) / 6 * 6;
+		pitchLength = newPitchLength;
+		customPercent = newCustomPercent;
+		r = new Random(seed);
+
+		if (pitchWidth != newPitchWidth)
+			System.err.println("Pitch width rounded up to " + pitchWidth + ", a multiple of 6.");
+	}
+} /* LeagueGenerator */
@@ -0,0 +1,657 @@
+/* A class that estimates the expected goals of a game between two teams without simulating
+   it. The pitch is divided into square zones, and the position of the ball at the start
+   of a tick is modelled as a Markov chain over the zones, plus two states for a ball in
+   goal 1 and in goal 2. From a zone:
+
+	- each team's player nearest to the ball is the one whose expected distance to the
+	  centre of the zone (over his uniformly distributed position in his roaming region)
+	  is smallest, and the nearer of the two players gets the ball (a tie is a coin flip),
+	- the player takes the ball to the point of his roaming region nearest to the zone's
+	  centre, and kicks it with the kick model of his team (or, if he is a goal keeper,
+	  with a goal keeper kick), so the ball lands on every cell within reach with the
+	  probability of the kicks that reach it, and
+	- a ball that lands in a goal moves to the goal's state, from which the next tick
+	  restarts at the centre of the pitch.
+
+   The transition matrix is built as a sparse matrix (compressed rows). Since every goal
+   restarts the game at the kick off, the game is a sequence of cycles that each end in a
+   goal, and the expected goals follow from the expected length of a cycle and the chance
+   that it ends in either goal. Both are the solutions of linear systems in the transitions
+   among the zones. Goals are rare, so iterating the chain towards its stationary
+   distribution (or Gauss-Seidel, much the same) would take very many steps; the systems
+   are solved on the sparse matrix by BiCGSTAB, preconditioned with its incomplete LU
+   factors, in a few dozen steps that each take time proportional to the transitions.
+
+   The chain ignores the movement of the players and the interception of kicks, so the
+   estimates are coarse, but they take milliseconds and rank strategies well enough to
+   screen large populations before simulating them.
+ */
+
+import java.util.*;
+
+class MarkovEstimator {
+	private int pitchWidth;			/* Width of the pitch.								*/
+	private int pitchLength;		/* Length of the pitch.								*/
+	private int zoneSize;			/* Side of a zone in cells.							*/
+	private int zonesX;				/* Number of zones across the X axis.				*/
+	private int zonesY;				/* Number of zones across the Y axis.				*/
+	private int numStates;			/* Number of zones plus the 2 goal states.			*/
+	private int goal1State;			/* State of a ball in goal 1.						*/
+	private int goal2State;			/* State of a ball in goal 2.						*/
+	private int kickOffState;		/* State of the zone at the centre of the pitch.	*/
+	private BallPhysics physics;	/* Keeps kicked balls in bounds and detects goals.	*/
+
+	/* Sparse transition matrix, in compressed rows: the transitions from state s are
+	   to states column[k] with probabilities value[k], for rowStart[s] <= k < rowStart[s+1].
+	 */
+	private int [] rowStart;
+	private int [] column;
+	private double [] value;
+
+	private double [] row;			/* Probabilities of the row being built, by state.	*/
+	private int [] touched;			/* States with a probability in the row.			*/
+	private int numTouched;			/* Number of touched states.						*/
+
+	/* The matrix I - Q of the absorption systems, over the zones, in compressed rows (the
+	   row of a zone from which no goal can be reached is that of the identity), and its
+	   incomplete LU factors, which keep only the entries in the matrix's pattern.
+	 */
+	private int [] systemStart;
+	private int [] systemColumn;
+	private double [] systemValue;
+	private int [] diagonalAt;		/* Position of the diagonal entry of each row.		*/
+	private double [] factors;		/* Entries of L (below the diagonal) and of U.		*/
+
+	private static final double TOLERANCE = 1e-10;	/* Relative residual of a solution.	*/
+	private static final double BREAKDOWN = 1e-12;	/* Negligible cosine of two vectors.	*/
+	private static final int RESTART = 50;			/* Iterations between restarts.		*/
+	private static final int MAX_RESTARTS = 1000;	/* Restarts before giving up.		*/
+
+
+	/* Return the state of the zone that contains the cell (x,y).
+	 */
+	private int zone (int x, int y) {
+		return (y / zoneSize) * zonesX + (x / zoneSize);
+	}
+
+
+	/* Return the state of a ball that lands on the cell (x,y).
+	 */
+	private int landing (int x, int y) {
+		switch (physics.inGoal(x, y)) {
+			case 1: return goal1State;
+			case 2: return goal2State;
+			default: return zone(x, y);
+		}
+	}
+
+
+	/* Return the expected distance |c - U| between a coordinate c and a coordinate U that
+	   is uniformly distributed between a and b.
+	 */
+	private static double expectedDistance (double c, int a, int b) {
+		if (a == b)
+			return Math.abs(c - a);
+
+		if (c <= a || b <= c)
+			return Math.abs(c - (a + b) / 2.0);
+
+		return ((c - a) * (c - a) + (b - c) * (b - c)) / (2.0 * (b - a));
+	}
+
+
+	/* Return the index of the player of a team who is expected to be nearest to (cx,cy),
+	   and store his expected distance in distance[0].
+	 */
+	private static int nearestPlayer (Team team, double cx, double cy, double [] distance) {
+		int nearest = 0;
+		distance[0] = Double.MAX_VALUE;
+
+		for (int i=0; i < team.getSize(); i++) {
+			Player p = team.getPlayer(i);
+			double dx = expectedDistance(cx, p.getRoamingX1(), p.getRoamingX4());
+			double dy = expectedDistance(cy, p.getRoamingY1(), p.getRoamingY4());
+			double d = Math.sqrt(dx * dx + dy * dy);
+
+			if (d < distance[0]) {
+				distance[0] = d;
+				nearest = i;
+			}
+		}
+
+		return nearest;
+	}
+
+
+	/* Add the probability q of a transition to a state to the row being built.
+	 */
+	private void addTransition (int state, double q) {
+		if (q == 0)
+			return;
+
+		if (row[state] == 0)
+			touched[numTouched++] = state;
+
+		row[state] += q;
+	}
+
+
+	/* Add to the row the landing probabilities of a kick by a player of a team, with the
+	   given direction and kick model, from the cell (x,y), weighted by p.
+	 */
+	private void addKicks (double p, int x, int y, int direction, KickModel kicks) {
+		int [] lengths = kicks.getKickLengths(pitchWidth, pitchLength);
+		double total = 0;
+
+		for (int k=0; k < kicks.getNumberOfKicks(); k++)
+			total += kicks.getWeight(k);
+
+		for (int k=0; k < kicks.getNumberOfKicks(); k++) {
+			double q = p * kicks.getWeight(k) / total / lengths[k];
+
+			for (int length=0; length < lengths[k]; length++) {
+				int newx = physics.clampX(x + kicks.getDeltaX(k) * direction * length);
+				int newy = physics.clampY(y + kicks.getDeltaY(k) * direction * length);
+				addTransition(landing(newx, newy), q);
+			}
+		}
+	}
+
+
+	/* Add to the row the landing probabilities of a goal keeper kick, with the given
+	   direction, from the cell (x,y), weighted by p.
+	 */
+	private void addGoalkeeperKicks (double p, int x, int y, int direction) {
+		int longHorizontalKick = pitchWidth/5;
+		int longVerticalKick = pitchLength/10;
+		double q = p / longHorizontalKick / longVerticalKick;
+
+		for (int i=0; i < longHorizontalKick; i++)
+			for (int j=0; j < longVerticalKick; j++)
+				addTransition(landing(physics.clampX(x + direction * i), physics.clampY(y + direction * j)), q);
+	}
+
+
+	/* Add to the row the landing probabilities of the kicks of a team's player from the
+	   zone centred at (cx,cy), weighted by p.
+	 */
+	private void addPossession (double p, Team team, int player, double cx, double cy, int direction) {
+		if (p == 0)
+			return;
+
+		Player kicker = team.getPlayer(player);
+		int x = (int) Math.min(Math.max(Math.round(cx), kicker.getRoamingX1()), kicker.getRoamingX4());
+		int y = (int) Math.min(Math.max(Math.round(cy), kicker.getRoamingY1()), kicker.getRoamingY4());
+
+		if (kicker.isGoalkeeper())
+			addGoalkeeperKicks(p, x, y, direction);
+		else
+			addKicks(p, x, y, direction, team.getKickModel());
+	}
+
+
+	/* Build the transition matrix of a game between a home team (team1) and an away team
+	   (team2), whose roaming regions must be set for their sides of the pitch.
+	 */
+	private void buildChain (Team team1, Team team2) {
+		int numZones = zonesX * zonesY;
+		double [] d1 = new double[1];
+		double [] d2 = new double[1];
+		int [] starts = new int[numStates + 1];
+		int [] columns = new int[16 * numStates];
+		double [] values = new double[16 * numStates];
+		int nonZeros = 0;
+
+		if (row == null) {
+			row = new double[numStates];
+			touched = new int[numStates];
+		}
+
+		for (int s=0; s < numStates; s++) {
+			numTouched = 0;
+
+			if (s >= numZones)
+				addTransition(kickOffState, 1);
+			else {
+				int zx = s % zonesX;
+				int zy = s / zonesX;
+				double cx = Math.min(zx * zoneSize + (zoneSize - 1) / 2.0, pitchWidth - 1);
+				double cy = Math.min(zy * zoneSize + (zoneSize - 1) / 2.0, pitchLength - 1);
+
+				int p1 = nearestPlayer(team1, cx, cy, d1);
+				int p2 = nearestPlayer(team2, cx, cy, d2);
+				double team1Gets = (d1[0] < d2[0]) ? 1 : (d1[0] > d2[0]) ? 0 : 0.5;
+
+				addPossession(team1Gets, team1, p1, cx, cy, 1);
+				addPossession(1 - team1Gets, team2, p2, cx, cy, -1);
+			}
+
+			/* Only the states the row touched are visited (and cleared for the next row),
+			   so a row takes time proportional to its transitions, not to the states.
+			 */
+			Arrays.sort(touched, 0, numTouched);
+
+			for (int i=0; i < numTouched; i++) {
+				int t = touched[i];
+
+				if (nonZeros == columns.length) {
+					columns = Arrays.copyOf(columns, 2 * nonZeros);
+					values = Arrays.copyOf(values, 2 * nonZeros);
+				}
+
+				columns[nonZeros] = t;
+				values[nonZeros] = row[t];
+				nonZeros++;
+				row[t] = 0;
+			}
+
+			starts[s + 1] = nonZeros;
+		}
+
+		rowStart = starts;
+		column = columns;
+		value = values;
+	}
+
+
+	/* Return {ticks, goal2} for a ball at the kick off: the expected number of ticks until
+	   the ball is in a goal, and the probability that the goal is goal 2. These solve the
+	   linear systems (I - Q) t = 1 and (I - Q) h = r, where Q holds the transitions among
+	   the zones and r the probabilities of moving into goal 2.
+
+	   A zone from which no goal can be reached would leave I - Q singular, so such zones
+	   are left out of the systems. If the ball can get there from the kick off, no goal
+	   is expected in finite time.
+	 */
+	private double [] solveAbsorption () {
+		int n = zonesX * zonesY;
+		boolean [] solvable = reachesGoal(n);
+
+		if (!solvable[kickOffState] || getsStuck(n, solvable))
+			return new double [] { Double.POSITIVE_INFINITY, 0 };
+
+		double [] ones = new double[n];
+		double [] intoGoal2 = new double[n];
+
+		for (int s=0; s < n; s++) {
+			if (!solvable[s])
+				continue;
+
+			ones[s] = 1;
+
+			for (int k=rowStart[s]; k < rowStart[s + 1]; k++)
+				if (column[k] == goal2State)
+					intoGoal2[s] += value[k];
+		}
+
+		buildSystem(n, solvable);
+		factorSystem(n);
+
+		double ticks = solve(ones)[kickOffState];
+		double goal2 = solve(intoGoal2)[kickOffState];
+
+		/* Rounding can leave a probability a hair outside [0,1].
+		 */
+		return new double [] { ticks, Math.min(Math.max(goal2, 0), 1) };
+	}
+
+
+	/* Return whether a goal can be reached from each of the n zones, by a search from the
+	   goal states backwards along the transitions.
+	 */
+	private boolean [] reachesGoal (int n) {
+		int numTransitions = rowStart[numStates];
+		int [] inStart = new int[numStates + 1];
+
+		for (int k=0; k < numTransitions; k++)
+			inStart[column[k] + 1]++;
+
+		for (int t=0; t < numStates; t++)
+			inStart[t + 1] += inStart[t];
+
+		int [] from = new int[numTransitions];
+		int [] next = Arrays.copyOf(inStart, numStates);
+
+		for (int s=0; s < numStates; s++)
+			for (int k=rowStart[s]; k < rowStart[s + 1]; k++)
+				from[next[column[k]]++] = s;
+
+		boolean [] reached = new boolean[numStates];
+		int [] stack = new int[numStates];
+		int top = 0;
+
+		reached[goal1State] = reached[goal2State] = true;
+		stack[top++] = goal1State;
+		stack[top++] = goal2State;
+
+		while (top > 0) {
+			int t = stack[--top];
+
+			for (int k=inStart[t]; k < inStart[t + 1]; k++) {
+				if (!reached[from[k]]) {
+					reached[from[k]] = true;
+					stack[top++] = from[k];
+				}
+			}
+		}
+
+		return Arrays.copyOf(reached, n);
+	}
+
+
+	/* Return true if the ball can get from the kick off to a zone that is not solvable,
+	   without passing through a goal.
+	 */
+	private boolean getsStuck (int n, boolean [] solvable) {
+		boolean [] reached = new boolean[n];
+		int [] stack = new int[n];
+		int top = 0;
+
+		reached[kickOffState] = true;
+		stack[top++] = kickOffState;
+
+		while (top > 0) {
+			int s = stack[--top];
+
+			if (!solvable[s])
+				return true;
+
+			for (int k=rowStart[s]; k < rowStart[s + 1]; k++) {
+				int t = column[k];
+
+				if (t < n && !reached[t]) {
+					reached[t] = true;
+					stack[top++] = t;
+				}
+			}
+		}
+
+		return false;
+	}
+
+
+	/* Build the matrix I - Q over the n zones.
+	 */
+	private void buildSystem (int n, boolean [] solvable) {
+		int [] starts = new int[n + 1];
+		int [] columns = new int[rowStart[n] + n];
+		double [] values = new double[columns.length];
+		int [] at = new int[n];
+		int size = 0;
+
+		for (int s=0; s < n; s++) {
+			at[s] = -1;
+
+			/* The columns of a row are in order, and the goals come after the zones.
+			 */
+			for (int k=rowStart[s]; solvable[s] && k < rowStart[s + 1] && column[k] < n; k++) {
+				int t = column[k];
+
+				if (t > s && at[s] < 0) {
+					at[s] = size;
+					columns[size] = s;
+					values[size++] = 1;
+				}
+
+				if (t == s) {
+					at[s] = size;
+					columns[size] = s;
+					values[size++] = 1 - value[k];
+				}
+				else {
+					columns[size] = t;
+					values[size++] = -value[k];
+				}
+			}
+
+			if (at[s] < 0) {
+				at[s] = size;
+				columns[size] = s;
+				values[size++] = 1;
+			}
+
+			starts[s + 1] = size;
+		}
+
+		systemStart = starts;
+		systemColumn = columns;
+		systemValue = values;
+		diagonalAt = at;
+	}
+
+
+	/* Compute the incomplete LU factors of I - Q. Q is substochastic and every zone left
+	   in the systems is transient, so I - Q is an M-matrix, and its factors exist.
+	 */
+	private void factorSystem (int n) {
+		double [] lu = systemValue.clone();
+		int [] position = new int[n];
+
+		Arrays.fill(position, -1);
+
+		for (int i=0; i < n; i++) {
+			for (int k=systemStart[i]; k < systemStart[i + 1]; k++)
+				position[systemColumn[k]] = k;
+
+			for (int k=systemStart[i]; k < diagonalAt[i]; k++) {
+				int j = systemColumn[k];
+				lu[k] /= lu[diagonalAt[j]];
+
+				for (int m=diagonalAt[j]+1; m < systemStart[j + 1]; m++) {
+					int at = position[systemColumn[m]];
+
+					if (at >= 0)
+						lu[at] -= lu[k] * lu[m];
+				}
+			}
+
+			for (int k=systemStart[i]; k < systemStart[i + 1]; k++)
+				position[systemColumn[k]] = -1;
+		}
+
+		factors = lu;
+	}
+
+
+	/* Store in y the product (I - Q) x.
+	 */
+	private void multiply (double [] x, double [] y) {
+		for (int s=0; s < x.length; s++) {
+			double sum = 0;
+
+			for (int k=systemStart[s]; k < systemStart[s + 1]; k++)
+				sum += systemValue[k] * x[systemColumn[k]];
+
+			y[s] = sum;
+		}
+	}
+
+
+	/* Store in z the solution of L U z = y, by forward and back substitution.
+	 */
+	private void precondition (double [] y, double [] z) {
+		int n = y.length;
+
+		for (int i=0; i < n; i++) {
+			double sum = y[i];
+
+			for (int k=systemStart[i]; k < diagonalAt[i]; k++)
+				sum -= factors[k] * z[systemColumn[k]];
+
+			z[i] = sum;
+		}
+
+		for (int i=n-1; i >= 0; i--) {
+			double sum = z[i];
+
+			for (int k=diagonalAt[i]+1; k < systemStart[i + 1]; k++)
+				sum -= factors[k] * z[systemColumn[k]];
+
+			z[i] = sum / factors[diagonalAt[i]];
+		}
+	}
+
+
+	/* Return the dot product of two vectors.
+	 */
+	private static double dot (double [] a, double [] b) {
+		double sum = 0;
+
+		for (int i=0; i < a.length; i++)
+			sum += a[i] * b[i];
+
+		return sum;
+	}
+
+
+	/* Return true if BiCGSTAB broke down: the dot product d of the vectors a and b, which
+	   it divides by, is negligible next to their norms. This happens, e.g., when the
+	   residual moves away from the few zones from which a goal is scored.
+	 */
+	private static boolean brokeDown (double d, double [] a, double [] b) {
+		return !(Math.abs(d) > BREAKDOWN * Math.sqrt(dot(a, a) * dot(b, b)));
+	}
+
+
+	/* Return the solution x of (I - Q) x = b (b is 0 in the zones that are not solvable),
+	   by BiCGSTAB preconditioned with the incomplete LU factors, from x = 0 until the
+	   residual is within TOLERANCE of the norm of b. A chain that rarely leaves some zones
+	   can make the iterations stall, so every RESTART iterations (or sooner, if they break
+	   down) they start afresh from the current x, with its exact residual.
+	 */
+	private double [] solve (double [] b) {
+		int n = b.length;
+		double [] x = new double[n];
+		double [] r = new double[n];
+		double [] r0 = new double[n];
+		double [] p = new double[n];
+		double [] v = new double[n];
+		double [] pHat = new double[n];
+		double [] sHat = new double[n];
+		double [] t = new double[n];
+		double limit = TOLERANCE * Math.sqrt(dot(b, b));
+
+		for (int restart=0; restart < MAX_RESTARTS; restart++) {
+			multiply(x, r);
+
+			for (int i=0; i < n; i++) {
+				r[i] = b[i] - r[i];
+				r0[i] = r[i];
+				p[i] = v[i] = 0;
+			}
+
+			double rho = 1, alpha = 1, omega = 1;
+
+			for (int iteration=0; iteration < RESTART; iteration++) {
+				if (Math.sqrt(dot(r, r)) <= limit)
+					return x;
+
+				double rhoNext = dot(r0, r);
+
+				if (brokeDown(rhoNext, r0, r))
+					break;
+
+				double beta = (rhoNext / rho) * (alpha / omega);
+				rho = rhoNext;
+
+				for (int i=0; i < n; i++)
+					p[i] = r[i] + beta * (p[i] - omega * v[i]);
+
+				precondition(p, pHat);
+				multiply(pHat, v);
+				double r0v = dot(r0, v);
+
+				if (brokeDown(r0v, r0, v))
+					break;
+
+				alpha = rho / r0v;
+
+				for (int i=0; i < n; i++) {
+					x[i] += alpha * pHat[i];
+					r[i] -= alpha * v[i];
+				}
+
+				if (Math.sqrt(dot(r, r)) <= limit)
+					return x;
+
+				precondition(r, sHat);
+				multiply(sHat, t);
+				omega = dot(t, r) / dot(t, t);
+
+				for (int i=0; i < n; i++) {
+					x[i] += omega * sHat[i];
+					r[i] -= omega * t[i];
+				}
+			}
+		}
+
+		return x;
+	}
+
+
+	/* Return the expected goals {home, away} of a game between a home team (team1) and
+	   an away team (team2). The teams are set up for their sides of the pitch, as a game
+	   would set them up.
+	 */
+	public double [] estimate (Team team1, Team team2) {
+		assert team1 != null && team2 != null : "Null team passed to estimate().";
+
+		team1.setGoal(1);
+		team1.setPlayersRoamingCoordinates();
+		team2.setGoal(2);
+		team2.setPlayersRoamingCoordinates();
+
+		buildChain(team1, team2);
+		double [] absorption = solveAbsorption();
+
+		/* Every goal restarts the game at the kick off one tick later, so a game is a
+		   sequence of independent cycles of ticks + 1 ticks, each ending in one goal. A
+		   ball in goal 2 is a goal of the home team, and a ball in goal 1 is a goal of the
+		   away team.
+		 */
+		if (Double.isInfinite(absorption[0]) || Double.isNaN(absorption[0]))
+			return new double [] { 0, 0 };
+
+		double goals = Math.max(0, Game.DURATION / (absorption[0] + 1));
+		return new double [] { goals * absorption[1], goals * (1 - absorption[1]) };
+	}
+
+
+	/* Output the expected goals of every fixture of a tournament among the given teams.
+	 */
+	public void outputEstimates (Vector<Team> teams) {
+		System.out.printf("%-20s %-20s %8s %8s\n", "HOME", "AWAY", "xG", "xG");
+
+		for (int i=0; i < teams.size(); i++) {
+			for (int j=0; j < teams.size(); j++) {
+				if (i == j)
+					continue;
+
+				Team home = teams.get(i);
+				Team away = teams.get(j);
+				double [] goals = estimate(home, away);
+				System.out.printf("%-20s %-20s %8.2f %8.2f\n", home.getName(), away.getName(), goals[0], goals[1]);
+			}
+		}
+	}
+
+
+	/* Construct an estimator for games on a pitch of the given size, with zones of
+	   newZoneSize x newZoneSize cells.
+	 */
+	public MarkovEstimator (int newPitchWidth, int newPitchLength, int newZoneSize) {
+		assert newPitchWidth > 0 && newPitchLength > 0 : "Invalid pitch size passed to MarkovEstimator().";
+		assert newZoneSize > 0 : "Non-positive zone size passed to MarkovEstimator().";
+
+		pitchWidth = newPitchWidth;
+		pitchLength = newPitchLength;
+		zoneSize = newZoneSize;
+		zonesX = (pitchWidth + zoneSize - 1) / zoneSize;
+		zonesY = (pitchLength + zoneSize - 1) / zoneSize;
+		goal1State = zonesX * zonesY;
+		goal2State = goal1State + 1;
+		numStates = goal1State + 2;
+		kickOffState = zone(pitchWidth/2, pitchLength/2);
+		physics = new BallPhysics(Pitch.create(pitchWidth, pitchLength, 0));
+	}
+} /* MarkovEstimator */
@@ -0,0 +1,254 @@
+/* A class that collects metrics of the simulation when metrics are enabled (see the Settings
+   class). Counters are striped (LongAdder), so that several games may update them at once
+   without contention, and the phases of a game tick are timed with latency histograms.
+   Timing a phase looks like:
+
+	long start = Metrics.start();
+	...
+	Metrics.stop(Metrics.KICK, start);
+
+   When metrics are disabled, start() and stop() do nothing and are removed by the JIT.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+class Metrics implements MetricsMBean {
+	static final int NEAREST = 0;				/* Search for the players nearest to the ball.	*/
+	static final int KICK = 1;					/* Kick (by a player or a goal keeper).			*/
+	static final int IN_GOAL = 2;				/* Check if the ball is in a goal.				*/
+	static final int MOVE_PLAYERS = 3;			/* Move the players of both teams.				*/
+	static final int KICK_OFF = 4;				/* Kick off after a goal or at the start.		*/
+
+	private static final String [] phaseNames = { "nearestPlayer", "kick", "inGoal", "movePlayers", "kickOff" };
+
+	private static final Metrics metrics = Settings.METRICS ? new Metrics() : null;
+
+	private LatencyHistogram [] phases;			/* Latency of each phase.							*/
+	private LongAdder ticks;					/* Number of simulated ticks.						*/
+	private LongAdder games;					/* Number of played games.							*/
+	private LongAdder moveAttempts;				/* Number of proposed player moves.					*/
+	private LongAdder rejectedMoves;			/* Number of proposed moves to occupied positions. 	*/
+	private LongAdder allocatedBytes;			/* Bytes allocated while playing games.				*/
+	private LongAdder interceptions;			/* Number of intercepted kicks.						*/
+	private long startTime;						/* Time (in nanoseconds) the metrics were created.	*/
+	private com.sun.management.ThreadMXBean threads;	/* Source of allocation counts, or null.	*/
+
+
+	/* Return the start time of a phase, or 0 if metrics are disabled.
+	 */
+	static long start () {
+		if (Settings.METRICS)
+			return System.nanoTime();
+		else
+			return 0;
+	}
+
+
+	/* Record the latency of a phase that started at the given time.
+	 */
+	static void stop (int phase, long start) {
+		if (Settings.METRICS)
+			metrics.phases[phase].record(System.nanoTime() - start);
+	}
+
+
+	/* Count a simulated tick.
+	 */
+	static void tick () {
+		if (Settings.METRICS)
+			metrics.ticks.increment();
+	}
+
+
+	/* Count the proposed moves of a player, of which 'rejected' were to occupied positions.
+	 */
+	static void moves (int attempts, int rejected) {
+		if (Settings.METRICS) {
+			metrics.moveAttempts.add(attempts);
+			metrics.rejectedMoves.add(rejected);
+		}
+	}
+
+
+	/* Count an intercepted kick.
+	 */
+	static void interception () {
+		if (Settings.METRICS)
+			metrics.interceptions.increment();
+	}
+
+
+	/* Return the number of bytes allocated so far by the current thread, or 0 if
+	   metrics are disabled or the JVM cannot count allocations.
+	 */
+	static long allocated () {
+		if (Settings.METRICS && metrics.threads != null)
+			return metrics.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+		else
+			return 0;
+	}
+
+
+	/* Count a played game, during which the current thread's allocation count went from
+	   allocatedAtStart (as returned by allocated()) to its current value.
+	 */
+	static void game (long allocatedAtStart) {
+		if (Settings.METRICS) {
+			metrics.games.increment();
+			metrics.allocatedBytes.add(allocated() - allocatedAtStart);
+		}
+	}
+
+
+	/* Output a summary of the metrics to standard error, if metrics are enabled.
+	 */
+	static void printSummary () {
+		if (Settings.METRICS)
+			System.err.print(metrics.getSummary());
+	}
+
+
+	/* Return the index of a phase name.
+	 */
+	private int phaseIndex (String phase) {
+		for (int i=0; i < phaseNames.length; i++)
+			if (phaseNames[i].equals(phase))
+				return i;
+
+		throw new IllegalArgumentException("Unknown phase: " + phase);
+	}
+
+
+	public long getTicks () {
+		return ticks.sum();
+	}
+
+
+	public double getTicksPerSecond () {
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		return getTicks() / seconds;
+	}
+
+
+	public long getGames () {
+		return games.sum();
+	}
+
+
+	public long getMoveAttempts () {
+		return moveAttempts.sum();
+	}
+
+
+	public long getRejectedMoves () {
+		return rejectedMoves.sum();
+	}
+
+
+	public long getInterceptions () {
+		return interceptions.sum();
+	}
+
+
+	public long getAllocatedBytes () {
+		return allocatedBytes.sum();
+	}
+
+
+	public long getPeakHeapBytes () {
+		long peak = 0;
+
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+
+		return peak;
+	}
+
+
+	public String [] getPhases () {
+		return phaseNames.clone();
+	}
+
+
+	public long getPhaseCount (String phase) {
+		return phases[phaseIndex(phase)].getCount();
+	}
+
+
+	public long getPhaseTotalNanos (String phase) {
+		return phases[phaseIndex(phase)].getTotal();
+	}
+
+
+	public long getPhasePercentileNanos (String phase, double percentile) {
+		return phases[phaseIndex(phase)].getPercentile(percentile);
+	}
+
+
+	public String getSummary () {
+		StringBuilder sb = new StringBuilder();
+		long games = getGames();
+		long attempts = getMoveAttempts();
+		long phaseTotal = 0;
+
+		for (int i=0; i < phases.length; i++)
+			phaseTotal += phases[i].getTotal();
+
+		sb.append(String.format("Simulation metrics\n"));
+		sb.append(String.format("    Games: %d, ticks: %d, ticks/sec: %.0f\n", games, getTicks(), getTicksPerSecond()));
+		sb.append(String.format("    Move attempts: %d, rejected: %d (%.1f%%)\n", attempts, getRejectedMoves(),
+				(attempts == 0) ? 0.0 : 100.0 * getRejectedMoves() / attempts));
+		sb.append(String.format("    Interceptions: %d\n", getInterceptions()));
+		sb.append(String.format("    Allocated: %d bytes (%d bytes/game)\n", getAllocatedBytes(),
+				(games == 0) ? 0 : getAllocatedBytes() / games));
+		sb.append(String.format("    Peak heap: %d bytes\n", getPeakHeapBytes()));
+		sb.append(String.format("    %-16s %12s %8s %10s %10s %10s %10s\n", "PHASE", "COUNT", "TIME%", "MEAN ns",
+				"P50 ns", "P99 ns", "MAX ns"));
+
+		for (int i=0; i < phases.length; i++) {
+			LatencyHistogram h = phases[i];
+			sb.append(String.format("    %-16s %12d %7.1f%% %10.0f %10d %10d %10d\n", phaseNames[i], h.getCount(),
+					(phaseTotal == 0) ? 0.0 : 100.0 * h.getTotal() / phaseTotal, h.getMean(),
+					h.getPercentile(50.0), h.getPercentile(99.0), h.getMax()));
+		}
+
+		return sb.toString();
+	}
+
+
+	/* Construct the metrics and register them with the platform MBean server.
+	 */
+	private Metrics () {
+		phases = new LatencyHistogram[phaseNames.length];
+
+		for (int i=0; i < phases.length; i++)
+			phases[i] = new LatencyHistogram();
+
+		ticks = new LongAdder();
+		games = new LongAdder();
+		moveAttempts = new LongAdder();
+		rejectedMoves = new LongAdder();
+		allocatedBytes = new LongAdder();
+		interceptions = new LongAdder();
+		startTime = System.nanoTime();
+
+		try {
+			threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (!threads.isThreadAllocatedMemorySupported())
+				threads = null;
+		} catch (ClassCastException e) {
+			threads = null;
+		}
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("STS:type=Metrics"));
+		} catch (Exception e) {
+			System.err.println("Cannot register metrics MBean: " + e);
+		}
+	}
+} /* Metrics */
@@ -0,0 +1,45 @@
+/* The management interface of the simulation metrics (see the Metrics class). The metrics
+   are registered with the platform MBean server under the name "STS:type=Metrics", so they
+   can be watched with JConsole or any other JMX client while a tournament is played.
+ */
+
+public interface MetricsMBean {
+	/* Return the number of simulated ticks. */
+	long getTicks ();
+
+	/* Return the number of simulated ticks per second of wall-clock time. */
+	double getTicksPerSecond ();
+
+	/* Return the number of played games. */
+	long getGames ();
+
+	/* Return the number of proposed player moves. */
+	long getMoveAttempts ();
+
+	/* Return the number of proposed player moves to an occupied position. */
+	long getRejectedMoves ();
+
+	/* Return the number of kicks intercepted by the opposing team. */
+	long getInterceptions ();
+
+	/* Return the number of bytes allocated by the threads while playing games. */
+	long getAllocatedBytes ();
+
+	/* Return the sum of the peak usages of the heap memory pools. */
+	long getPeakHeapBytes ();
+
+	/* Return the names of the timed phases of the simulation. */
+	String [] getPhases ();
+
+	/* Return the number of times a phase has been timed. */
+	long getPhaseCount (String phase);
+
+	/* Return the total time (in nanoseconds) spent in a phase. */
+	long getPhaseTotalNanos (String phase);
+
+	/* Return a percentile (e.g., 99.0) of the latency (in nanoseconds) of a phase. */
+	long getPhasePercentileNanos (String phase, double percentile);
+
+	/* Return a text summary of all the metrics. */
+	String getSummary ();
+} /* MetricsMBean */
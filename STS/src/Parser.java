@@ -9,12 +9,14 @@
   	PITCH_WIDTH  ::= '<begin' 'width' '>' NUMBER '<\end' 'width' '>'
 
   	TEAM_RECORD ::= '<begin' 'team' '>' {TEAM_ATTRIBUTES}* '<\end' 'team' '>'
-  	TEAM_ATTRIBUTES ::= TEAM_NAME | TEAM_NUMBER_OF_PLAYERS | TEAM_STRATEGY 
+  	TEAM_ATTRIBUTES ::= TEAM_NAME | TEAM_NUMBER_OF_PLAYERS | TEAM_STRATEGY | TEAM_KICKS
     	TEAM_NAME ::= WORD {' ' WORD}
 	TEAM_NUMBER_OF_PLAYERS ::= NUMBER
 	TEAM STRATEGY ::= 'random' | 'custom' TEAM_REGIONS 
 	TEAM_REGIONS ::= {'<region> POINT POINT '<\region>'}* 
 	POINT ::= '(' NUMBER ',' NUMBER ')'
+	TEAM_KICKS ::= '<kicks>' {'<kick>' KICK_DIRECTION NUMBER NUMBER '<\kick>'}* '<\kicks>'
+	KICK_DIRECTION ::= 'forward' | 'back' | 'left' | 'right'
 
   	NUMBER ::= DIGIT NUMBER | DIGIT
   	DIGIT ::= '0' | '1' | '2' | '3' | '4' | '5' | '6' | '7' | '8' | '9'
@@ -97,6 +99,32 @@ class Parser {
 	}
 	
 	
+	/* Returns the signature of the ith team: a string that is equal for two teams if, and
+	   only if, their attributes are equal.
+	 */
+	public String getSignature (int i) {
+		assert teams != null : "No teams exist.";
+		assert i < teams.size() : "There are fewer than " + i + " teams.";
+
+		return teams.get(i).getSignature();
+	}
+
+
+	/* Returns the kick model of the ith team, or null if the team uses the default kicks.
+	 */
+	public KickModel getKickModel (int i) {
+		assert teams != null : "No teams exist.";
+		assert i < teams.size() : "There are fewer than " + i + " teams.";
+
+		Vector<int[]> kicks = teams.get(i).getCustomKicks();
+
+		if (kicks == null)
+			return null;
+		else
+			return new KickModel(kicks);
+	}
+	
+	
 	/* Check if a String contains only alphabetic characters and spaces.
      */
     private boolean isWords (String words) {
@@ -319,6 +347,59 @@ class Parser {
 	}
 
 
+	/* The TEAM_KICKS production of the grammar. Each kick is a direction, followed by 
+	   the weight of the kick and the divisor of the pitch dimension that gives the maximum
+	   length of the kick.
+	 */
+	private void TEAM_KICKS (TeamAttributes teamAttributes) {
+		assert teamAttributes != null : "Null team attributes passed to TEAM_KICKS().";
+
+		match(">");
+		match("<");
+
+		int numKicks = 0;
+		long totalWeight = 0;
+
+		while (s.currentChar() != '\\') {
+			match("kick>");
+
+			String word = s.scanWord();
+			int direction = KickModel.parseDirection(word);
+
+			if (direction < 0)
+				Quit.now("Parser error in input file, kick direction expected but '" + word + "' found.");
+
+			s.scanWhitespace();
+			String weight = s.scanNumber();
+			s.scanWhitespace();
+			String divisor = s.scanNumber();
+
+			if (weight.length() == 0 || divisor.length() == 0 || Integer.parseInt(divisor) == 0)
+				Quit.now("Parser error in input file, kick weight and divisor expected.");
+
+			int [] kick = new int[3];
+			kick[0] = direction;
+			kick[1] = Integer.parseInt(weight);
+			kick[2] = Integer.parseInt(divisor);
+
+			teamAttributes.addCustomKick(kick);
+			numKicks++;
+			totalWeight += kick[1];
+
+			match("<\\kick>");
+
+			match("<");
+		}
+
+		/* A kick is drawn with a probability proportional to its weight.
+		 */
+		if (numKicks > 0 && totalWeight == 0)
+			Quit.now("Parser error in input file, kick weights must not all be zero.");
+
+		match("\\kicks>");
+	}
+
+
 	/* The TEAM_ATTRIBUTES production of the grammar.
 	 */
 	private void TEAM_ATTRIBUTES () {
@@ -336,6 +417,8 @@ class Parser {
 				TEAM_NUMBER_OF_PLAYERS(teamAttributes);
 			else if (word.compareTo("strategy") == 0)  
 				TEAM_STRATEGY(teamAttributes);
+			else if (word.compareTo("kicks") == 0)  
+				TEAM_KICKS(teamAttributes);
 			else assert false : "Syntax error: unsupported tag.";
 
 			match ("<");
@@ -398,6 +481,11 @@ class TeamAttributes {
 					   					   			(x1,y1) and (x4,y4) points that define a player's
 					   					   			roaming region.
 					 							*/
+	private Vector<int[]> customKicks;			/*  If the team's kicks are prescribed via a kicks 
+												specification, store each kick as an array with 
+												exactly 3 elements: the kick direction, weight and
+												divisor.
+												*/
 
 	/* Return the name of the team. 
 	 */
@@ -465,6 +553,45 @@ class TeamAttributes {
 	}
 
 
+	/* Add an element to the custom kicks Vector corresponding to a team. The element is
+	   an array with exactly 3 elements: the kick direction, weight and divisor.
+	 */
+	public void addCustomKick (int [] kick) {
+		if (customKicks == null) {
+			customKicks = new Vector<int[]>();
+		}
+
+		customKicks.add(kick);
+	}
+
+
+	/* Return a Vector of custom kicks or null if there are none.
+	 */
+	public Vector<int[]> getCustomKicks () {
+		return customKicks;
+	}
+
+
+	/* Return a string that lists all the attributes of the team, so that two teams have
+	   equal signatures if, and only if, their attributes are equal.
+	 */
+	public String getSignature () {
+		StringBuilder sb = new StringBuilder();
+		sb.append(name).append('|').append(numberOfPlayers).append('|').append(strategy);
+
+		if (customRoaming != null)
+			for (Point2D [] points : customRoaming)
+				sb.append("|(").append(points[0].getX()).append(',').append(points[0].getY()).append(")(")
+					.append(points[1].getX()).append(',').append(points[1].getY()).append(')');
+
+		if (customKicks != null)
+			for (int [] kick : customKicks)
+				sb.append("|kick ").append(kick[0]).append(' ').append(kick[1]).append(' ').append(kick[2]);
+
+		return sb.toString();
+	}
+
+
 	/* Construct and initialize a team attribute.
 	 */
 	TeamAttributes (String newName, int newNumberOfPlayers, String newStrategy) {
@@ -476,6 +603,7 @@ class TeamAttributes {
 		numberOfPlayers = newNumberOfPlayers;
 		strategy = newStrategy;
 		customRoaming = null;
+		customKicks = null;
 	}
 
 
@@ -486,6 +614,7 @@ class TeamAttributes {
 		numberOfPlayers = 0;
 		strategy = "";
 		customRoaming = null;
+		customKicks = null;
 	}
 } /* TeamAttributes */
 
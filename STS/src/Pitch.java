@@ -15,6 +15,9 @@ public class Pitch {
 	private Point2D [] goal1;			/* Goal 1 pitch coordinates.		*/
 	private Point2D [] goal2;			/* Goal 2 pitch coordinates.		*/
 
+	private static final long SPARSE_AREA = 1L << 22;			/* Least area of a sparse pitch.			*/
+	private static final int SPARSE_AREA_PER_PLAYER = 256;		/* Least area per player of a sparse pitch.	*/
+
 
 	/* Return an array of 2 Points that define the coordinates of goal1.
 	 */
@@ -57,6 +60,15 @@ public class Pitch {
 	}
 
 
+	/* Return the Object that occupies position (x,y) on the pitch.
+	 */
+	public Object getObject(int x, int y) {
+		assert ((0 <= x) && (x < pitchWidth) && (0 <= y) && (y < pitchLength)) : "Out of pitch bounds in getObject().";
+
+		return pitch[x][y];
+	}
+
+
 	/* Set a point on the pitch to an Object (e.g., a pointer to a player).
 	 */
 	public void setCoordinates(Point2D position, Object o) {
@@ -69,6 +81,13 @@ public class Pitch {
 	}
 
 
+	/* Set position (x,y) on the pitch to an Object.
+	 */
+	public void setCoordinates(int x, int y, Object o) {
+		pitch[x][y] = o;
+	}
+
+
 	/* Get the length of the pitch.
 	 */
 	public int getPitchLength() {
@@ -109,9 +128,43 @@ public class Pitch {
 	}
 
 
+	/* Return true if several threads may write distinct positions of the pitch at once.
+	 */
+	public boolean supportsConcurrentWrites() {
+		return true;
+	}
+
+
+	/* Return a new pitch for a game of the given total number of players: a sparse pitch
+	   (see SparsePitch) if the pitch is large and far larger than the number of players,
+	   or a dense pitch otherwise, unless a kind of pitch is set (see the Settings class).
+	 */
+	public static Pitch create(int width, int length, int numPlayers) {
+		long area = (long) width * length;
+		boolean sparse;
+
+		if (Settings.PITCH.equals("sparse"))
+			sparse = true;
+		else if (Settings.PITCH.equals("dense"))
+			sparse = false;
+		else
+			sparse = area >= SPARSE_AREA && area >= SPARSE_AREA_PER_PLAYER * numPlayers;
+
+		return sparse ? new SparsePitch(width, length, numPlayers) : new Pitch(width, length);
+	}
+
+
 	/* Construct and initialize a pitch.
 	 */
 	public Pitch(int width, int length) {
+		this(width, length, true);
+	}
+
+
+	/* Construct a pitch, with a grid of its positions only if dense is true, for
+	   subclasses that store the positions otherwise.
+	 */
+	protected Pitch(int width, int length, boolean dense) {
 		assert width  >= 0 : "Negative pitch width passed to Pitch().";
 		assert length >= 0 : "Negative length width passed to Pitch().";
 
@@ -132,6 +185,9 @@ public class Pitch {
 		goal2[0] = new Point2D(lowPost, pitchLength-1);
 		goal2[1] = new Point2D(highPost, pitchLength-1);
 
+		if (!dense)
+			return;
+
 		pitch = new Object [pitchWidth][pitchLength];
 
 		for (int i=0; i < pitchWidth; i++) 
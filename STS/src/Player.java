@@ -21,37 +21,36 @@ public class Player {
 	private int pitchWidth; 	   					/* Width of the pitch where the player exists.  */
 	private int pitchLength;	   					/* Length of the pitch where the player exists. */
 
-	private Point2D [] homeRoaming;	   			/* Home roaming rectangle:  			     
-					          						homeRoaming[0] = (x1,y1), bottom-left  	     
-					          						homeRoaming[1] = (x2,y2), bottom-right  	     
-					          						homeRoaming[2] = (x3,y3), top-left      
-					          						homeRoaming[3] = (x4,y4), top-right   			*/
-
-	private Point2D [] awayRoaming;	   			/* Away roaming rectangle:  			     
-					          						awayRoaming[0] = (x1,y1), bottom-left  	     
-					          						awayRoaming[1] = (x2,y2), bottom-right  	     
-					          						awayRoaming[2] = (x3,y3), top-left      
-					          						awayRoaming[3] = (x4,y4), top-right   			*/
-
-	private Point2D [] roaming;	   				/* Set roaming variable to either homeRoaming     
-					      			       		   or awayRoaming depending on whether the team   
-					      			       		   is playing on the home or the away side of     
-					      			       		   the pitch.       				   				*/
+	private int homeX1, homeY1;					/* Home roaming rectangle: (x1,y1), bottom-left, 	*/
+	private int homeX4, homeY4;					/* and (x4,y4), top-right. The away rectangle is 
+					          					   its mirror image, computed when needed.			*/
+	private boolean roamingSet;					/* True once the player's side has been set.		*/
+	private int roamingX1, roamingY1;			/* Current roaming rectangle (home or away side):	*/
+	private int roamingX4, roamingY4;			/* (x1,y1), bottom-left, and (x4,y4), top-right.	*/
 
 
 	/* Set the roaming coordinates of the player to the pre-calculated home roaming 
 	  coordinates.
 	 */
 	public void setRoamingToHome () {
-		roaming = homeRoaming;
+		roamingSet = true;
+		roamingX1 = homeX1;
+		roamingY1 = homeY1;
+		roamingX4 = homeX4;
+		roamingY4 = homeY4;
 	}
 
 
-	/* Set the roaming coordinates of the player to the pre-calculated away roaming 
-	  coordinates.
+	/* Set the roaming coordinates of the player to the away roaming coordinates, the
+	   mirror image of the home roaming coordinates. (x1,y1) and (x4,y4) are swapped, so
+	   that (x1,y1) is the bottom-left and (x4,y4) the top-right in absolute coordinates.
 	 */
 	public void setRoamingToAway () {
-		roaming = awayRoaming;
+		roamingSet = true;
+		roamingX1 = (pitchWidth-1)  - homeX4;
+		roamingY1 = (pitchLength-1) - homeY4;
+		roamingX4 = (pitchWidth-1)  - homeX1;
+		roamingY4 = (pitchLength-1) - homeY1;
 	}
 
 
@@ -64,10 +63,66 @@ public class Player {
 
 	
 	/* Return a 4-element array of 2D points that defines the rectangle in which a 
-	   a player may roam during the game.
+	   a player may roam during the game: (x1,y1) bottom-left, (x2,y2) bottom-right,
+	   (x3,y3) top-left and (x4,y4) top-right. The array is built on every call; code
+	   on the hot path should use getRoamingX1() etc. instead. Return null if the side
+	   of the player has not been set yet.
 	 */
 	public Point2D[] getRoamingCoordinates () {
-		return roaming;
+		if (!roamingSet)
+			return null;
+
+		return roamingArray(roamingX1, roamingY1, roamingX4, roamingY4);
+	}
+
+
+	/* Return the 4-element array of 2D points that defines the player's home roaming
+	   rectangle, regardless of the side of the pitch on which the team currently plays.
+	 */
+	public Point2D[] getHomeRoamingCoordinates () {
+		return roamingArray(homeX1, homeY1, homeX4, homeY4);
+	}
+
+
+	/* Return the X coordinate of the bottom-left corner of the current roaming rectangle.
+	 */
+	public int getRoamingX1 () {
+		return roamingX1;
+	}
+
+
+	/* Return the Y coordinate of the bottom-left corner of the current roaming rectangle.
+	 */
+	public int getRoamingY1 () {
+		return roamingY1;
+	}
+
+
+	/* Return the X coordinate of the top-right corner of the current roaming rectangle.
+	 */
+	public int getRoamingX4 () {
+		return roamingX4;
+	}
+
+
+	/* Return the Y coordinate of the top-right corner of the current roaming rectangle.
+	 */
+	public int getRoamingY4 () {
+		return roamingY4;
+	}
+
+
+	/* Return a 4-element array of 2D points for the rectangle with corners (x1,y1) and
+	   (x4,y4).
+	 */
+	private static Point2D [] roamingArray (int x1, int y1, int x4, int y4) {
+		Point2D [] points = new Point2D[4];
+		points[0] = new Point2D(x1, y1);
+		points[1] = new Point2D(x4, y1);
+		points[2] = new Point2D(x1, y4);
+		points[3] = new Point2D(x4, y4);
+
+		return points;
 	}
 
 
@@ -117,12 +172,11 @@ public class Player {
 	}
 
 
-	/* Set a roaming region for a player, but perform a series of sanity 
-	   checks before committing to the calculated roaming region. 
+	/* Perform a series of sanity checks on a roaming region before committing to it. 
 	 */
-	private Point2D [] initRoamingArray (int x1, int y1, int x4, int y4) {
+	private void checkRoaming (int x1, int y1, int x4, int y4) {
         /* The bottom-right (x2,y2) and top-left (x3,y3) points are 
-           stored as well for efficiency purposes.                  
+           checked as well.
 		 */
         int x2 = x4;
         int y2 = y1;
@@ -151,16 +205,17 @@ public class Player {
                	Math.abs(x2-x1) == Math.abs(x4-x3) &&
                	Math.abs(y3-y1) == Math.abs(y4-y2) :
                 		"Roaming coordinates do not form a rectangle.";
+	}
 
-        /* Each player's roaming region is stored in a 4-element array of 2D points.                                   
-		 */
-         Point2D [] newRoaming = new Point2D[4];
-         newRoaming[0] = new Point2D(x1, y1);
-         newRoaming[1] = new Point2D(x2, y2);
-         newRoaming[2] = new Point2D(x3, y3);
-         newRoaming[3] = new Point2D(x4, y4);
 
-         return newRoaming;
+	/* Set the home roaming coordinates, after checking them.
+	 */
+	private void setHomeRoaming (int x1, int y1, int x4, int y4) {
+		checkRoaming(x1, y1, x4, y4);
+		homeX1 = x1;
+		homeY1 = y1;
+		homeX4 = x4;
+		homeY4 = y4;
 	}
 
 
@@ -169,16 +224,18 @@ public class Player {
 	   mirror image of the passed points. Then, (x1,y1) and (x4,y4) are swapped
 	   to make all roaming rectangles consistent in the absolute pitch coordinates
 	   (i.e, (x1, y1) is the top-left and (x4, y4) is the bottom-right in absolute
-	   coordinates). The area of the away roaming region is returned by the function.
+	   coordinates). The away coordinates are not stored, as they are computed from the
+	   home coordinates by setRoamingToAway(), but they are checked. The area of the away
+	   roaming region is returned by the function.
 	 */
-	int setAwayRoamingArea (int homeX1, int homeY1, int homeX4, int homeY4) {
-		int x1 = (pitchWidth-1)  - homeX1;
-        int y1 = (pitchLength-1) - homeY1;
-        int x4 = (pitchWidth-1)  - homeX4;
-        int y4 = (pitchLength-1) - homeY4;
-
-        awayRoaming = initRoamingArray(x4, y4, x1, y1);
-        return Math.abs(x4-x1) * Math.abs(y1-y4);
+	int setAwayRoamingArea (int x1, int y1, int x4, int y4) {
+		int awayX1 = (pitchWidth-1)  - x1;
+        int awayY1 = (pitchLength-1) - y1;
+        int awayX4 = (pitchWidth-1)  - x4;
+        int awayY4 = (pitchLength-1) - y4;
+
+        checkRoaming(awayX4, awayY4, awayX1, awayY1);
+        return Math.abs(awayX4-awayX1) * Math.abs(awayY1-awayY4);
 	}
 
 
@@ -209,7 +266,7 @@ public class Player {
 
 		/* Set the home roaming coordinates.
 		 */
-		homeRoaming = initRoamingArray(x1, y1, x4, y4);
+		setHomeRoaming(x1, y1, x4, y4);
 
 		/* Set the away roaming coordinates.
 		 */
@@ -230,11 +287,10 @@ public class Player {
        for each player that is less than or equal to the maximum roaming region. 
 	   In some cases it settles for a smaller roaming region, however. After
 	   calculating the home roaming region, the away roaming region is calculated
-	   as the mirror image of the home roaming region. 
+	   as the mirror image of the home roaming region. Random roaming regions are drawn
+	   from the random number generator r.
 	 */
-    public void setPlayerRoaming (Point2D [] customRoamingCoordinates) {
-    	Random r = new Random();
-
+    public void setPlayerRoaming (Point2D [] customRoamingCoordinates, Random r) {
 		int teamSize = team.getSize();
         int maxPlayerArea = (pitchWidth * pitchLength) / teamSize;
         int minPlayerWidth = 1;
@@ -247,7 +303,7 @@ public class Player {
             int playerWidth = r.nextInt(maxPlayerWidth-minPlayerWidth) + 1;
             int playerLength = maxPlayerArea / playerWidth;
 
-            if (playerLength > pitchLength)
+            if (playerLength >= pitchLength)
             	playerLength = pitchLength-1;
 
             /* Get random starting point (bottom-left corner) of a player's 
@@ -272,7 +328,7 @@ public class Player {
 		 */
 		int homeRoamingArea = Math.abs(x4-x1) * Math.abs(y1-y4);
 
-		homeRoaming = initRoamingArray(x1, y1, x4, y4);
+		setHomeRoaming(x1, y1, x4, y4);
 
 		/* Next, create the away roaming coordinates. 
 		 */
@@ -346,9 +402,10 @@ public class Player {
 	}
 
 
-	/* Construct and initialize a soccer player.
+	/* Construct and initialize a soccer player. A random roaming region, if one is 
+	   needed, is drawn from the random number generator r.
 	 */
-	public Player (Team t, int newId, int newPitchWidth, int newPitchLength, Point2D [] customRoamingCoordinates) {
+	public Player (Team t, int newId, int newPitchWidth, int newPitchLength, Point2D [] customRoamingCoordinates, Random r) {
 		setTeam(t);
 		id = newId;
 		pitchWidth = newPitchWidth;
@@ -371,7 +428,7 @@ public class Player {
 		if (id == 1)
 			setGoalkeeperRoaming(customRoamingCoordinates);
 		else
-			setPlayerRoaming(customRoamingCoordinates);
+			setPlayerRoaming(customRoamingCoordinates, r);
 	}
 } /* Player */
 
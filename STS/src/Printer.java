@@ -3,9 +3,12 @@
    Author: Spiros Mancoridis (c) 2011
  */
 
+import java.io.PrintStream;
+
 public class Printer {
 	private int pitchWidth;
 	private int pitchLength;
+	private PrintStream out;
 
 	/* Print the pitch along with  the players.
 	 */
@@ -20,17 +23,17 @@ public class Printer {
         		Player p = (Player) pitch.getObject(new Point2D(j,i));
 
                 if (j == ballX && i == ballY)
-                	System.out.print("*");
+                	out.print("*");
                 else if (p == null) {
-                	System.out.print("-");
+                	out.print("-");
                 } else {
                 	char playerId = p.getTeam().getId();
-                    System.out.print(playerId);
+                    out.print(playerId);
                 }
         	} /* inner for */
-            System.out.println();
+            out.println();
         } /* outer for */
-        System.out.println("\n");
+        out.println("\n");
    	} /* pitchWithPlayers */
 
 
@@ -38,13 +41,12 @@ public class Printer {
    	 */
    	public void pitchWithSinglePlayerRoamingRegion (Player player) {
    		Pitch pitch = new Pitch(pitchWidth, pitchLength);
-        Point2D [] roaming = player.getRoamingCoordinates();
-        int x1 = roaming[0].getX();
-        int y1 = roaming[0].getY();
-        int x4 = roaming[3].getX();
-        int y4 = roaming[3].getY();
+        int x1 = player.getRoamingX1();
+        int y1 = player.getRoamingY1();
+        int x4 = player.getRoamingX4();
+        int y4 = player.getRoamingY4();
         
-        System.out.println("Roaming region area for play = " + (x4-x1)*(y4-y1));
+        out.println("Roaming region area for play = " + (x4-x1)*(y4-y1));
 
         for (int x=x1; x <= x4; x++) {
         	for (int y=y1; y <= y4; y++) {
@@ -67,33 +69,27 @@ public class Printer {
 
         for (int i=0; i < numPlayers; i++) {
 			Player p = team.getPlayer(i);
-            Point2D [] roaming = p.getRoamingCoordinates();
-            int x1 = roaming[0].getX();
-            int y1 = roaming[0].getY();
-            int x4 = roaming[3].getX();
-            int y4 = roaming[3].getY();
+            int x1 = p.getRoamingX1();
+            int y1 = p.getRoamingY1();
+            int x4 = p.getRoamingX4();
+            int y4 = p.getRoamingY4();
 
             for (int x=x1; x <= x4; x++)
-            	for (int y=y1; y <= y4; y++) {
-					Point2D xy = new Point2D(x,y);
-                    pitch.setCoordinates(xy, p);
-				}
+            	for (int y=y1; y <= y4; y++)
+                    pitch.setCoordinates(x, y, p);
         }
 
 		Ball dummyBall = new Ball(new Point2D(-1,-1));
 		pitchWithPlayers(dummyBall, pitch);
 
-        int teamArea = 0;
-		for (int i=0; i < pitchWidth; i++) {
-			for (int j=0; j < pitchLength; j++) {
-				if (pitch.getObject(new Point2D(i,j)) != null) 
-					teamArea++;
-			}
-		}
-
-        System.out.println("Total team covered area = " + teamArea);
-        System.out.println("Total team uncovered area = " + ((pitchWidth * pitchLength) - teamArea));
-        System.out.println();
+		/* The areas are computed from the rectangles, not from the painted pitch.
+		 */
+		RoamingGeometry geometry = new RoamingGeometry(team, pitchWidth, pitchLength);
+
+        out.println("Total team covered area = " + geometry.getCoveredArea());
+        out.println("Total team uncovered area = " + geometry.getUncoveredArea());
+        out.println("Total team overlapping area = " + geometry.getOverlapArea());
+        out.println();
     } /* pitchWithRoamingRegions */
 
 
@@ -114,13 +110,13 @@ public class Printer {
 	public void teamStatistics(Team team) {
 		int totalTeamTouches = 0;
 
-        System.out.println(team.getName() + " player statistics:");
+        out.println(team.getName() + " player statistics:");
 		int teamSize = team.getSize();
 
         for (int i=0; i < teamSize; i++) {
         	Player p = team.getPlayer(i);
 
-            System.out.println("    Player " + p.getId() +
+            out.println("    Player " + p.getId() +
                                 " Touches: " + p.getTouches() +
                                 ", Goals: " + p.getGoals() +
                                 ", Own Goals: " + p.getOwnGoals()
@@ -130,24 +126,32 @@ public class Printer {
            //pitchWithPlayerBallTouches(p);
         }
 
-        System.out.println("Total team touches: " + totalTeamTouches);
-        System.out.println();
+        out.println("Total team touches: " + totalTeamTouches);
+        out.println();
     } /* teamStatistics */
 
 
-    /* Output the score board to standard output.
+    /* Output the score board.
      */
     public void printScoreBoard(Game g) {
-        System.out.println(g.getTeam1Name() + " : " + g.getTeam1Score());
-        System.out.println(g.getTeam2Name() + " : " + g.getTeam2Score());
+        out.println(g.getTeam1Name() + " : " + g.getTeam1Score());
+        out.println(g.getTeam2Name() + " : " + g.getTeam2Score());
     } /* printScoreBoard */
 
 
+    /* Print to the given stream instead of the standard output.
+     */
+	public void setOutput (PrintStream newOut) {
+		out = newOut;
+	} /* setOutput */
+
+
     /* Construct a pitch of a specified size.
      */
 	public Printer (int newPitchWidth, int newPitchLength) {
 		pitchWidth = newPitchWidth;
 		pitchLength = newPitchLength;
+		out = System.out;
 	} /* Printer */
 	
 } /* Printer */
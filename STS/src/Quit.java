@@ -3,9 +3,22 @@
    Author: Spiros Mancoridis (c) 2011
  */
 public class Quit {
-	
+	private static boolean recoverable = false;	/* Throw errors instead of quitting.	*/
+
 	static void now(String error) {
+		if (recoverable)
+			throw new IllegalArgumentException(error);
+
 		System.out.println(error);
 		System.exit(1);
 	}
+
+
+	/* Make the errors passed to now() recoverable (i.e., thrown as an 
+	   IllegalArgumentException) or not, e.g., for a long-running program that should
+	   survive a bad input file.
+	 */
+	static void setRecoverable(boolean newRecoverable) {
+		recoverable = newRecoverable;
+	}
 }
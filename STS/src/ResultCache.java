@@ -0,0 +1,229 @@
+/* A class that remembers the results of games, so that a game between two team strategies
+   that have already met on the same pitch with the same seed is not simulated again. A
+   game is a function of the strategies of its teams (their size, roaming regions and kick
+   models), the pitch size and the seed of its random number generator, so its result is
+   looked up by the key (home fingerprint, away fingerprint, pitch width, pitch length,
+   seed). A fingerprint is a 64-bit hash of a team's strategy, which does not depend on the
+   team's name, so duplicate teams in a league share their results.
+
+   The cache holds at most a given number of results and evicts the least recently used
+   one when it is full. It may be saved to, and loaded from, a text file with one result
+   per line:
+
+	homeFingerprint awayFingerprint pitchWidth pitchLength seed homeScore awayScore
+
+   where the fingerprints and the seed are hexadecimal. Since the results of a game depend
+   on whether kicks can be intercepted and on the random number generator, the first line
+   of the file records those settings, and a file that was saved with other settings is
+   ignored.
+
+   Only the scores of a game are cached, so the statistics of the players (touches, goals)
+   are only counted in games that are actually simulated.
+ */
+
+import java.io.*;
+import java.util.*;
+
+class ResultCache {
+	private int capacity;								/* Maximum number of cached results.	*/
+	private LinkedHashMap<ResultKey,int[]> results;		/* Cached scores, in access order. 		*/
+	private long hits;									/* Number of successful lookups.		*/
+	private long misses;								/* Number of failed lookups.			*/
+
+
+	/* Return the fingerprint of a team's strategy: a hash of the number of players, the
+	   home roaming region of every player (in player order), and the kick model.
+	 */
+	static long fingerprint (Team team) {
+		assert team != null : "Null team passed to fingerprint().";
+
+		long h = SplitMix64.mix(0, team.getSize());
+
+		for (int i=0; i < team.getSize(); i++) {
+			Point2D [] roaming = team.getPlayer(i).getHomeRoamingCoordinates();
+			h = SplitMix64.mix(h, roaming[0].getX());
+			h = SplitMix64.mix(h, roaming[0].getY());
+			h = SplitMix64.mix(h, roaming[3].getX());
+			h = SplitMix64.mix(h, roaming[3].getY());
+		}
+
+		KickModel kicks = team.getKickModel();
+		h = SplitMix64.mix(h, kicks.getNumberOfKicks());
+
+		for (int k=0; k < kicks.getNumberOfKicks(); k++) {
+			h = SplitMix64.mix(h, kicks.getDirection(k));
+			h = SplitMix64.mix(h, kicks.getWeight(k));
+			h = SplitMix64.mix(h, kicks.getDivisor(k));
+		}
+
+		return h;
+	}
+
+
+	/* Return the scores {home, away} of a cached game, or null if the game is not cached.
+	 */
+	synchronized int [] get (long homeFingerprint, long awayFingerprint, int pitchWidth, int pitchLength, long seed) {
+		int [] score = results.get(new ResultKey(homeFingerprint, awayFingerprint, pitchWidth, pitchLength, seed));
+
+		if (score == null)
+			misses++;
+		else
+			hits++;
+
+		return score;
+	}
+
+
+	/* Cache the scores of a game.
+	 */
+	synchronized void put (long homeFingerprint, long awayFingerprint, int pitchWidth, int pitchLength, long seed,
+			int homeScore, int awayScore) {
+		results.put(new ResultKey(homeFingerprint, awayFingerprint, pitchWidth, pitchLength, seed),
+				new int [] { homeScore, awayScore });
+	}
+
+
+	/* Return the number of cached results.
+	 */
+	synchronized int size () {
+		return results.size();
+	}
+
+
+	/* Return the number of lookups that found a cached result.
+	 */
+	synchronized long getHits () {
+		return hits;
+	}
+
+
+	/* Return the number of lookups that did not find a cached result.
+	 */
+	synchronized long getMisses () {
+		return misses;
+	}
+
+
+	/* Load the results saved in a file, if it exists. Lines that cannot be read are
+	   skipped.
+	 */
+	synchronized void load (String fileName) {
+		File file = new File(fileName);
+
+		if (!file.exists())
+			return;
+
+		try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+			String header = in.readLine();
+
+			if (header == null || !header.equals(header()))
+				return;
+
+			String line;
+
+			while ((line = in.readLine()) != null) {
+				String [] words = line.trim().split("\\s+");
+
+				if (words.length != 7)
+					continue;
+
+				try {
+					put(Long.parseUnsignedLong(words[0], 16), Long.parseUnsignedLong(words[1], 16),
+						Integer.parseInt(words[2]), Integer.parseInt(words[3]), Long.parseUnsignedLong(words[4], 16),
+						Integer.parseInt(words[5]), Integer.parseInt(words[6]));
+				} catch (NumberFormatException e) {
+					continue;
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Cannot load result cache " + fileName + ": " + e);
+		}
+	}
+
+
+	/* Save the cached results to a file, from the least to the most recently used, so that
+	   loading the file restores their order. The results are written to a temporary file
+	   that then replaces the file, so an interrupted save does not lose the old results.
+	 */
+	synchronized void save (String fileName) {
+		File file = new File(fileName);
+		File temp = new File(fileName + ".tmp");
+
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(temp)))) {
+			out.println(header());
+
+			for (Map.Entry<ResultKey,int[]> e : results.entrySet()) {
+				ResultKey k = e.getKey();
+				out.printf("%x %x %d %d %x %d %d\n", k.homeFingerprint, k.awayFingerprint, k.pitchWidth, k.pitchLength,
+						k.seed, e.getValue()[0], e.getValue()[1]);
+			}
+		} catch (IOException e) {
+			System.err.println("Cannot save result cache " + fileName + ": " + e);
+			return;
+		}
+
+		if (!temp.renameTo(file))
+			System.err.println("Cannot save result cache " + fileName + ".");
+	}
+
+
+	/* Return the first line of a cache file, which records the settings that change the
+	   results of games. The kind of pitch only changes how positions are stored.
+	 */
+	private static String header () {
+		return "STS results, interception=" + Settings.INTERCEPTION + ", random=" + Settings.RANDOM
+				+ ", crn=" + Settings.CRN + ", parallel.moves=" + Settings.PARALLEL_MOVES;
+	}
+
+
+	/* Construct an empty cache that holds at most newCapacity results.
+	 */
+	ResultCache (int newCapacity) {
+		assert newCapacity > 0 : "Non-positive capacity passed to ResultCache().";
+
+		capacity = newCapacity;
+		results = new LinkedHashMap<ResultKey,int[]>(16, 0.75f, true) {
+			protected boolean removeEldestEntry (Map.Entry<ResultKey,int[]> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+} /* ResultCache */
+
+
+
+/* A class that implements the key of a cached game result.
+ */
+class ResultKey {
+	final long homeFingerprint;		/* Fingerprint of the home team's strategy.	*/
+	final long awayFingerprint;		/* Fingerprint of the away team's strategy.	*/
+	final int pitchWidth;			/* Width of the pitch.						*/
+	final int pitchLength;			/* Length of the pitch.						*/
+	final long seed;				/* Seed of the game's random numbers.		*/
+
+
+	public boolean equals (Object o) {
+		if (!(o instanceof ResultKey))
+			return false;
+
+		ResultKey k = (ResultKey) o;
+		return homeFingerprint == k.homeFingerprint && awayFingerprint == k.awayFingerprint &&
+			pitchWidth == k.pitchWidth && pitchLength == k.pitchLength && seed == k.seed;
+	}
+
+
+	public int hashCode () {
+		long h = SplitMix64.mix(SplitMix64.mix(SplitMix64.mix(homeFingerprint, awayFingerprint), seed),
+				((long) pitchWidth << 32) | pitchLength);
+		return (int) (h ^ (h >>> 32));
+	}
+
+
+	ResultKey (long newHomeFingerprint, long newAwayFingerprint, int newPitchWidth, int newPitchLength, long newSeed) {
+		homeFingerprint = newHomeFingerprint;
+		awayFingerprint = newAwayFingerprint;
+		pitchWidth = newPitchWidth;
+		pitchLength = newPitchLength;
+		seed = newSeed;
+	}
+} /* ResultKey */
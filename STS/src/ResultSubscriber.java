@@ -0,0 +1,118 @@
+/* A class that consumes the results of the games of a tournament, which publishes them
+   (see the Tournament class) as they are recorded. A subscriber is given the results
+   one at a time, in the order in which they were recorded, on a thread of the common
+   fork-join pool, so it needs no lock of its own.
+
+   A subscriber asks for at most Settings.RESULTS_BUFFER results at a time, and for more
+   once it has consumed half of them, and the publisher holds at most as many results
+   for it. When a subscriber falls behind (e.g., one that writes to a slow disk), the
+   games that record their results wait for it, instead of piling their results up in
+   memory.
+
+   The tournament completes the stream of results before its tables are output, and
+   waits for every subscriber to finish. An error in a subscriber stops it, and is
+   thrown again to the thread that waits for it.
+ */
+
+import java.util.concurrent.*;
+
+abstract class ResultSubscriber implements Flow.Subscriber<GameResult> {
+	private Flow.Subscription subscription;		/* Subscription to the results.				*/
+	private long batch;							/* Results asked for at a time.				*/
+	private long consumed;						/* Results consumed since the last request.	*/
+	private Throwable failure;					/* Error that stopped the subscriber.		*/
+	private CountDownLatch done;				/* Opened when the subscriber stops.		*/
+
+
+	/* Consume the result of a game.
+	 */
+	abstract void consume (GameResult result);
+
+
+	/* Finish consuming, once every result has been consumed. By default, do nothing.
+	 */
+	void finish () {
+	}
+
+
+	public void onSubscribe (Flow.Subscription newSubscription) {
+		subscription = newSubscription;
+		subscription.request(2 * batch);
+	}
+
+
+	public void onNext (GameResult result) {
+		if (failure != null)
+			return;
+
+		try {
+			consume(result);
+		} catch (RuntimeException | Error e) {
+			stop(e);
+			return;
+		}
+
+		if (++consumed == batch) {
+			consumed = 0;
+			subscription.request(batch);
+		}
+	}
+
+
+	public void onError (Throwable e) {
+		stop(e);
+	}
+
+
+	public void onComplete () {
+		if (failure != null)
+			return;
+
+		try {
+			finish();
+		} catch (RuntimeException | Error e) {
+			failure = e;
+		}
+
+		done.countDown();
+	}
+
+
+	/* Stop consuming because of an error.
+	 */
+	private void stop (Throwable e) {
+		if (failure != null)
+			return;
+
+		failure = e;
+		subscription.cancel();
+		done.countDown();
+	}
+
+
+	/* Wait until the subscriber has consumed every result and finished. If it stopped
+	   because of an error, throw the error.
+	 */
+	void await () {
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Quit.now("Interrupted while waiting for the results.");
+		}
+
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		if (failure != null)
+			throw new IllegalStateException("Result subscriber failed: " + failure, failure);
+	}
+
+
+	/* Construct a subscriber.
+	 */
+	ResultSubscriber () {
+		batch = Math.max(1, Settings.RESULTS_BUFFER / 2);
+		done = new CountDownLatch(1);
+	}
+} /* ResultSubscriber */
@@ -0,0 +1,49 @@
+/* A class that subscribes to the results of a tournament (see the ResultSubscriber class)
+   and logs them to a CSV file, a line "home,away,homeScore,awayScore" per game, in the
+   order in which they were recorded. The file is written while the tournament is played,
+   and closed when its results are complete.
+ */
+
+import java.io.*;
+import java.util.Vector;
+
+class ResultsLog extends ResultSubscriber {
+	private Vector<Team> teams;		/* Teams of the tournament.		*/
+	private String fileName;		/* Name of the log file.		*/
+	private PrintWriter out;		/* Writer of the log file.		*/
+
+
+	void consume (GameResult result) {
+		out.print(ScoresWriter.csv(teams.elementAt(result.homeTeam).getName()));
+		out.print(',');
+		out.print(ScoresWriter.csv(teams.elementAt(result.awayTeam).getName()));
+		out.print(',');
+		out.print(result.homeScore);
+		out.print(',');
+		out.println(result.awayScore);
+	}
+
+
+	void finish () {
+		out.close();
+
+		if (out.checkError())
+			Quit.now("Error writing the results to " + fileName);
+	}
+
+
+	/* Construct a log of the results of the given teams in a file.
+	 */
+	ResultsLog (Vector<Team> newTeams, String newFileName) {
+		teams = newTeams;
+		fileName = newFileName;
+
+		try {
+			out = new PrintWriter(new BufferedWriter(new FileWriter(fileName), 1 << 16));
+		} catch (IOException e) {
+			Quit.now("Cannot write the results to " + fileName + ": " + e.getMessage());
+		}
+
+		out.println("home,away,homeScore,awayScore");
+	}
+} /* ResultsLog */
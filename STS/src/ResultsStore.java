@@ -0,0 +1,76 @@
+/* A class that stores the scores of the games of a tournament, by home and away team, in
+   a dense matrix. The teams are numbered from 0, and the scores of the game between home
+   team i and away team j are packed in one int, (home score << 16) | away score, at
+   index i * n + j of an array, so the store takes 4n^2 bytes for n teams and no object
+   per game. A game that has not been played is marked with UNPLAYED, which is negative;
+   the scores are at most MAX_SCORE, so the packed scores of a game never are.
+ */
+
+import java.util.Arrays;
+
+class ResultsStore {
+	private static final int UNPLAYED = -1;		/* Scores of a game not played.				*/
+	private static final int MAX_SCORE = 0x7FFF;	/* Largest score that can be stored.	*/
+
+	private int numTeams;						/* Number of teams.						*/
+	private int [] scores;						/* Packed scores of every game.			*/
+
+
+	/* Return the number of teams.
+	 */
+	public int getNumberOfTeams () {
+		return numTeams;
+	}
+
+
+	/* Store the scores of the game between home team i and away team j.
+	 */
+	public void set (int i, int j, int homeScore, int awayScore) {
+		assert i != j : "A team cannot play itself.";
+		assert homeScore >= 0 && awayScore >= 0 : "Scores cannot be negative.";
+
+		if (homeScore > MAX_SCORE || awayScore > MAX_SCORE)
+			Quit.now("Score too large to store: " + homeScore + "-" + awayScore);
+
+		scores[i * numTeams + j] = (homeScore << 16) | awayScore;
+	}
+
+
+	/* Return true if the game between home team i and away team j has been played.
+	 */
+	public boolean isPlayed (int i, int j) {
+		return scores[i * numTeams + j] != UNPLAYED;
+	}
+
+
+	/* Return the score of home team i in its game against away team j.
+	 */
+	public int getHomeScore (int i, int j) {
+		assert isPlayed(i, j) : "Score of an unplayed game.";
+
+		return scores[i * numTeams + j] >>> 16;
+	}
+
+
+	/* Return the score of away team j in its game against home team i.
+	 */
+	public int getAwayScore (int i, int j) {
+		assert isPlayed(i, j) : "Score of an unplayed game.";
+
+		return scores[i * numTeams + j] & 0xFFFF;
+	}
+
+
+	/* Construct a store of the games of n teams, none of which has been played.
+	 */
+	public ResultsStore (int n) {
+		assert n > 0 : "Non-positive number of teams passed to ResultsStore().";
+
+		if ((long) n * n > Integer.MAX_VALUE - 8)
+			Quit.now("Too many teams to store their results: " + n);
+
+		numTeams = n;
+		scores = new int [n * n];
+		Arrays.fill(scores, UNPLAYED);
+	}
+} /* ResultsStore */
@@ -0,0 +1,328 @@
+/* A class that computes the coverage of a set of roaming rectangles (e.g., those of the
+   players of a team): the area covered by at least one rectangle, the area that is not
+   covered, and the overlap, i.e., the sum of the areas of the intersections of every pair
+   of rectangles. Areas are counted in pitch cells, and a rectangle with corners (x1,y1)
+   and (x4,y4) covers every cell with x1 <= x <= x4 and y1 <= y <= y4, which are the cells
+   in which a player may roam.
+
+   The areas are computed without painting cells, by sweeping a line across the X axis.
+   A segment tree over the (compressed) Y coordinates of the rectangles keeps, for the
+   current column, the number of cells covered at least once, and the sums of k and k*k,
+   where k is the number of rectangles that cover a cell. Since a cell covered by k
+   rectangles lies in k*(k-1)/2 pairwise intersections, the overlap is computed from the
+   same sweep. With n rectangles the computation takes O(n log n) time.
+ */
+
+import java.util.Arrays;
+import java.util.Vector;
+
+class RoamingGeometry {
+	private int numRectangles;		/* Number of rectangles.								*/
+	private long pitchArea;			/* Number of cells of the pitch.						*/
+	private long coveredArea;		/* Cells covered by at least one rectangle.				*/
+	private long overlapArea;		/* Sum of the areas of all pairwise intersections.		*/
+
+	/* Segment tree over the elementary Y intervals [ys[i], ys[i+1]).
+	 */
+	private long [] ys;				/* Sorted distinct Y boundaries.						*/
+	private int [] count;			/* Rectangles that cover a node's whole interval.		*/
+	private long [] covered;		/* Cells of a node's interval covered at least once.	*/
+	private long [] length;			/* Cells of a node's interval.							*/
+	private long [] sum;			/* Sum of k over the cells of a node's interval.		*/
+	private long [] sumOfSquares;	/* Sum of k*k over the cells of a node's interval.		*/
+	private long [] pending;		/* Lazy addition to k not yet pushed to the children. 	*/
+
+
+	/* Return the number of cells covered by at least one rectangle.
+	 */
+	public long getCoveredArea () {
+		return coveredArea;
+	}
+
+
+	/* Return the number of cells of the pitch that are not covered by any rectangle.
+	 */
+	public long getUncoveredArea () {
+		return pitchArea - coveredArea;
+	}
+
+
+	/* Return the sum, over every pair of rectangles, of the number of cells that both
+	   rectangles of the pair cover.
+	 */
+	public long getOverlapArea () {
+		return overlapArea;
+	}
+
+
+	/* Return the number of rectangles.
+	 */
+	public int getNumberOfRectangles () {
+		return numRectangles;
+	}
+
+
+	/* Return the number of cells that two rectangles, given by their corners, both cover.
+	 */
+	static long overlap (int ax1, int ay1, int ax4, int ay4, int bx1, int by1, int bx4, int by4) {
+		long w = (long) Math.min(ax4, bx4) - Math.max(ax1, bx1) + 1;
+		long h = (long) Math.min(ay4, by4) - Math.max(ay1, by1) + 1;
+
+		return (w > 0 && h > 0) ? w * h : 0;
+	}
+
+
+	/* Return, for every rectangle given by its corners, whether it overlaps no other
+	   rectangle. The rectangles are sorted by x1 and swept from left to right, keeping
+	   the rectangles that the sweep line still crosses, so only rectangles that share
+	   some X coordinates are compared with each other.
+	 */
+	static boolean [] findExclusive (int [] x1, int [] y1, int [] x4, int [] y4) {
+		int n = x1.length;
+		boolean [] exclusive = new boolean[n];
+		long [] order = new long[n];
+		int [] active = new int[n];
+		int numActive = 0;
+
+		for (int i=0; i < n; i++) {
+			exclusive[i] = true;
+			order[i] = ((long) x1[i] << 32) | i;
+		}
+
+		Arrays.sort(order);
+
+		for (int k=0; k < n; k++) {
+			int i = (int) order[k];
+
+			/* Drop the rectangles that end before this one starts, and compare this
+			   one with the rest.
+			 */
+			int kept = 0;
+
+			for (int a=0; a < numActive; a++) {
+				int j = active[a];
+
+				if (x4[j] < x1[i])
+					continue;
+
+				active[kept++] = j;
+
+				if (y1[i] <= y4[j] && y1[j] <= y4[i]) {
+					exclusive[i] = false;
+					exclusive[j] = false;
+				}
+			}
+
+			numActive = kept;
+			active[numActive++] = i;
+		}
+
+		return exclusive;
+	}
+
+
+	/* Build the segment tree node that spans the elementary intervals lo..hi.
+	 */
+	private void build (int node, int lo, int hi) {
+		length[node] = ys[hi + 1] - ys[lo];
+
+		if (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			build(2*node, lo, mid);
+			build(2*node + 1, mid + 1, hi);
+		}
+	}
+
+
+	/* Add d to k over the whole interval of a node.
+	 */
+	private void apply (int node, long d) {
+		sumOfSquares[node] += 2 * d * sum[node] + d * d * length[node];
+		sum[node] += d * length[node];
+		pending[node] += d;
+	}
+
+
+	/* Add d to the coverage k of the elementary intervals from..to, within the node
+	   that spans the elementary intervals lo..hi.
+	 */
+	private void update (int node, int lo, int hi, int from, int to, int d) {
+		if (to < lo || hi < from)
+			return;
+
+		if (from <= lo && hi <= to) {
+			count[node] += d;
+			apply(node, d);
+		} else {
+			int mid = (lo + hi) >>> 1;
+
+			if (pending[node] != 0) {
+				apply(2*node, pending[node]);
+				apply(2*node + 1, pending[node]);
+				pending[node] = 0;
+			}
+
+			update(2*node, lo, mid, from, to, d);
+			update(2*node + 1, mid + 1, hi, from, to, d);
+
+			sum[node] = sum[2*node] + sum[2*node + 1];
+			sumOfSquares[node] = sumOfSquares[2*node] + sumOfSquares[2*node + 1];
+		}
+
+		if (count[node] > 0)
+			covered[node] = length[node];
+		else if (lo == hi)
+			covered[node] = 0;
+		else
+			covered[node] = covered[2*node] + covered[2*node + 1];
+	}
+
+
+	/* Sweep a line across the X axis and accumulate the covered and overlapping areas
+	   of the rectangles given by their corners.
+	 */
+	private void sweep (int [] x1, int [] y1, int [] x4, int [] y4) {
+		int n = numRectangles;
+
+		if (n == 0)
+			return;
+
+		/* Compress the Y boundaries. A rectangle covers the Y interval [y1, y4+1).
+		 */
+		long [] allYs = new long[2*n];
+
+		for (int i=0; i < n; i++) {
+			allYs[2*i] = y1[i];
+			allYs[2*i + 1] = (long) y4[i] + 1;
+		}
+
+		Arrays.sort(allYs);
+		int numYs = 0;
+
+		for (int i=0; i < allYs.length; i++)
+			if (numYs == 0 || allYs[i] != allYs[numYs - 1])
+				allYs[numYs++] = allYs[i];
+
+		ys = Arrays.copyOf(allYs, numYs);
+		int numIntervals = numYs - 1;
+
+		count = new int[4 * numIntervals];
+		covered = new long[4 * numIntervals];
+		length = new long[4 * numIntervals];
+		sum = new long[4 * numIntervals];
+		sumOfSquares = new long[4 * numIntervals];
+		pending = new long[4 * numIntervals];
+		build(1, 0, numIntervals - 1);
+
+		/* Each rectangle enters the sweep at x1 and leaves it at x4+1. An event is packed
+		   in a long as (x << 32 | index << 1 | leaving), so sorting the events sorts
+		   them by X.
+		 */
+		long [] events = new long[2*n];
+
+		for (int i=0; i < n; i++) {
+			events[2*i] = ((long) x1[i] << 32) | ((long) i << 1);
+			events[2*i + 1] = (((long) x4[i] + 1) << 32) | ((long) i << 1) | 1;
+		}
+
+		Arrays.sort(events);
+
+		for (int e=0; e < events.length; e++) {
+			long x = events[e] >> 32;
+			int i = (int) (events[e] & 0xffffffffL) >>> 1;
+			int d = ((events[e] & 1) == 0) ? 1 : -1;
+
+			int from = Arrays.binarySearch(ys, y1[i]);
+			int to = Arrays.binarySearch(ys, (long) y4[i] + 1) - 1;
+			update(1, 0, numIntervals - 1, from, to, d);
+
+			if (e + 1 < events.length) {
+				long width = (events[e + 1] >> 32) - x;
+				coveredArea += covered[1] * width;
+				overlapArea += (sumOfSquares[1] - sum[1]) / 2 * width;
+			}
+		}
+
+		/* The tree is only needed during the sweep.
+		 */
+		ys = null;
+		count = null;
+		covered = length = sum = sumOfSquares = pending = null;
+	}
+
+
+	/* Construct the coverage of the rectangles with corners (x1[i],y1[i]) and (x4[i],y4[i])
+	   on a pitch of the given size.
+	 */
+	public RoamingGeometry (int [] x1, int [] y1, int [] x4, int [] y4, int pitchWidth, int pitchLength) {
+		assert x1.length == y1.length && y1.length == x4.length && x4.length == y4.length :
+			"Unequal numbers of rectangle coordinates.";
+
+		numRectangles = x1.length;
+		pitchArea = (long) pitchWidth * pitchLength;
+
+		for (int i=0; i < numRectangles; i++)
+			assert x1[i] <= x4[i] && y1[i] <= y4[i] : "Rectangle corners are out of order.";
+
+		sweep(x1, y1, x4, y4);
+	}
+
+
+	/* Construct the coverage of the current roaming rectangles of the players of a team
+	   on a pitch of the given size.
+	 */
+	public RoamingGeometry (Team team, int pitchWidth, int pitchLength) {
+		this(corners(team, 0), corners(team, 1), corners(team, 2), corners(team, 3), pitchWidth, pitchLength);
+	}
+
+
+	/* Construct the coverage of custom roaming rectangles, as returned by the Parser, on a
+	   pitch of the given size. Each element of the Vector is an array with exactly 2 points,
+	   (x1,y1) and (x4,y4).
+	 */
+	public RoamingGeometry (Vector<Point2D[]> customRoaming, int pitchWidth, int pitchLength) {
+		this(corners(customRoaming, 0), corners(customRoaming, 1), corners(customRoaming, 2), corners(customRoaming, 3),
+				pitchWidth, pitchLength);
+	}
+
+
+	/* Return one corner coordinate (0 = x1, 1 = y1, 2 = x4, 3 = y4) of the current
+	   roaming rectangle of every player of a team.
+	 */
+	private static int [] corners (Team team, int c) {
+		assert team != null : "Null team passed to RoamingGeometry().";
+
+		int [] values = new int[team.getSize()];
+
+		for (int i=0; i < values.length; i++) {
+			Player player = team.getPlayer(i);
+			assert player.getRoamingCoordinates() != null : "Roaming coordinates of the team have not been set.";
+
+			switch (c) {
+				case 0: values[i] = player.getRoamingX1(); break;
+				case 1: values[i] = player.getRoamingY1(); break;
+				case 2: values[i] = player.getRoamingX4(); break;
+				default: values[i] = player.getRoamingY4(); break;
+			}
+		}
+
+		return values;
+	}
+
+
+	/* Return one corner coordinate (0 = x1, 1 = y1, 2 = x4, 3 = y4) of every custom
+	   roaming rectangle.
+	 */
+	private static int [] corners (Vector<Point2D[]> customRoaming, int c) {
+		assert customRoaming != null : "Null custom roaming passed to RoamingGeometry().";
+
+		int [] values = new int[customRoaming.size()];
+
+		for (int i=0; i < values.length; i++) {
+			Point2D [] points = customRoaming.get(i);
+			values[i] = (c % 2 == 0) ? points[c / 2].getX() : points[c / 2].getY();
+		}
+
+		return values;
+	}
+} /* RoamingGeometry */
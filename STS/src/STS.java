@@ -1,15 +1,217 @@
-/* Main class that reads an attributes file whose name is in args[0] and, based on the 
+/* Main class that reads an attributes file whose name is in args[0] and, based on the
    contents of that file, creates a set of teams and plays a soccer tournament.
+
+   A tournament can also be played by a coordinator that distributes its games to
+   worker processes, which may run on other machines:
+
+	java STS -coordinator port attributes.txt [s|st|ts|t]
+	java STS -worker host port
+
+   Repeated short runs can be served by a long-lived daemon (see the Daemon class):
+
+	java STS -daemon port
+
+   Many tournaments, of any size, can be played at once by a service that shares one pool
+   of worker threads among them, by weight (see the JobService class):
+
+	java STS -serve port [workers]
+
+   Two team strategies (given by their indices in the attributes file, from 0) can be
+   compared by playing them against the same opponents (see the StrategyComparison class):
+
+	java STS -compare attributes.txt first second games
+
+   The expected goals of every fixture can be estimated, without playing any games, from
+   a Markov chain of the ball's position (see the MarkovEstimator class):
+
+	java STS -estimate attributes.txt
+
+   While the strategies are tuned, the tournament can be played again every time its
+   attributes file changes, replaying only the games of the changed teams (see the
+   AttributesWatcher class):
+
+	java STS -watch attributes.txt [s|st|ts|t]
+
+   Synthetic attributes files for load testing can be generated (see the LeagueGenerator
+   class, and loadtest.sh):
+
+	java STS -generate teams players width length [customPercent [seed]]
+
+   A single game between two teams (by default, the first two) can be watched in a
+   terminal while it is played (see the GameAnimator class):
+
+	java STS -animate attributes.txt [home away]
+
+   The statistics of every player in every game can be exported in a columnar binary
+   layout (see the StatsExport class), and read back as CSV (see the StatsReader class):
+
+	java -Dsts.stats.dir=stats STS attributes.txt
+	java STS -stats stats [column,column,...]
+
+   Provisional standings, with bounds, can be found within a time budget, by playing the
+   most informative fixtures first (see the AnytimeRanking class):
+
+	java STS -budget attributes.txt milliseconds
+
+   Leagues too large for a full tournament can be ranked from k random fixtures per team,
+   by fitting a model of the goals of the teams (see the SparseRanking class):
+
+	java STS -sample attributes.txt k [matrix.csv]
  */
 import java.util.*;
 
 public class STS {
 
 	public static void main (String args[]) {
+		if (args != null && args.length > 0 && args[0].equals("-coordinator")) {
+			if (args.length < 3 || args.length > 4)
+				Quit.now("Usage: java STS -coordinator port attributes.txt [s|st|ts|t]");
+
+			String outputSpec = (args.length == 4) ? args[3] : null;
+			Coordinator coordinator = new Coordinator(readFile(args[2]), outputSpec);
+			coordinator.run(Integer.parseInt(args[1]));
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-worker")) {
+			if (args.length != 3)
+				Quit.now("Usage: java STS -worker host port");
+
+			Worker worker = new Worker(args[1], Integer.parseInt(args[2]));
+			worker.run();
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-daemon")) {
+			if (args.length != 2)
+				Quit.now("Usage: java STS -daemon port");
+
+			Daemon daemon = new Daemon(Integer.parseInt(args[1]));
+			daemon.run();
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-serve")) {
+			if (args.length < 2 || args.length > 3)
+				Quit.now("Usage: java STS -serve port [workers]");
+
+			int workers = (args.length == 3) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+			JobService service = new JobService(Integer.parseInt(args[1]), workers);
+			service.run();
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-compare")) {
+			if (args.length != 5)
+				Quit.now("Usage: java STS -compare attributes.txt first second games");
+
+			Parser parser = new Parser(readFile(args[1]));
+			Random rosterRandom = (Settings.SEED == null) ? new Random() : new Random(Settings.SEED);
+			Vector<Team> teams = buildTeams(parser, rosterRandom);
+			StrategyComparison comparison = new StrategyComparison(teams, parser.getPitchWidth(), parser.getPitchLength());
+			comparison.compare(Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-generate")) {
+			if (args.length < 5 || args.length > 7)
+				Quit.now("Usage: java STS -generate teams players width length [customPercent [seed]]");
+
+			int customPercent = (args.length > 5) ? Integer.parseInt(args[5]) : 50;
+			long seed = (args.length > 6) ? Long.parseLong(args[6]) : new Random().nextLong();
+			LeagueGenerator generator = new LeagueGenerator(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+					Integer.parseInt(args[3]), Integer.parseInt(args[4]), customPercent, seed);
+			generator.generate(System.out);
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-watch")) {
+			if (args.length < 2 || args.length > 3)
+				Quit.now("Usage: java STS -watch attributes.txt [s|st|ts|t]");
+
+			AttributesWatcher watcher = new AttributesWatcher(args[1], (args.length == 3) ? args[2] : null);
+			watcher.run();
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-animate")) {
+			if (args.length != 2 && args.length != 4)
+				Quit.now("Usage: java STS -animate attributes.txt [home away]");
+
+			Parser parser = new Parser(readFile(args[1]));
+			Vector<Team> teams = buildTeams(parser, new Random());
+			int home = (args.length == 4) ? Integer.parseInt(args[2]) : 0;
+			int away = (args.length == 4) ? Integer.parseInt(args[3]) : 1;
+
+			if (home < 0 || away < 0 || home >= teams.size() || away >= teams.size() || home == away)
+				Quit.now("Invalid teams to animate: " + home + " " + away);
+
+			Team team1 = teams.get(home);
+			Team team2 = teams.get(away);
+			Pitch pitch = Pitch.create(parser.getPitchWidth(), parser.getPitchLength(), team1.getSize() + team2.getSize());
+			Ball ball = new Ball(new Point2D(parser.getPitchWidth()/2, parser.getPitchLength()/2));
+			long seed = (Settings.SEED == null) ? new Random().nextLong() : Settings.SEED;
+
+			Game g = new Game(team1, team2, ball, pitch, seed, new GameAnimator(team1, team2, pitch));
+			System.out.println(g.getTeam1Name() + " " + g.getTeam1Score() + " - " + g.getTeam2Score() + " " + g.getTeam2Name());
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-budget")) {
+			if (args.length != 3)
+				Quit.now("Usage: java STS -budget attributes.txt milliseconds");
+
+			Parser parser = new Parser(readFile(args[1]));
+			Vector<Team> teams = buildTeams(parser, new Random());
+			AnytimeRanking ranking = new AnytimeRanking(teams, parser.getPitchWidth(), parser.getPitchLength());
+			ranking.run(Long.parseLong(args[2]));
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-sample")) {
+			if (args.length < 3 || args.length > 4)
+				Quit.now("Usage: java STS -sample attributes.txt k [matrix.csv]");
+
+			Parser parser = new Parser(readFile(args[1]));
+			Vector<Team> teams = buildTeams(parser, new Random());
+			SparseRanking ranking = new SparseRanking(teams, parser.getPitchWidth(), parser.getPitchLength());
+			ranking.play(Integer.parseInt(args[2]), (Settings.SEED == null) ? new Random() : new Random(Settings.SEED));
+			ranking.fit();
+			ranking.outputTable();
+
+			if (args.length == 4)
+				ranking.writeMatrix(args[3]);
+
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-stats")) {
+			if (args.length < 2 || args.length > 3)
+				Quit.now("Usage: java STS -stats directory [column,column,...]");
+
+			String [] columns = (args.length == 3) ? args[2].split(",") : StatsExport.COLUMNS;
+			StatsReader reader = new StatsReader(args[1], columns);
+			reader.writeCSV(columns);
+			reader.close();
+			return;
+		}
+
+		if (args != null && args.length > 0 && args[0].equals("-estimate")) {
+			if (args.length != 2)
+				Quit.now("Usage: java STS -estimate attributes.txt");
+
+			Parser parser = new Parser(readFile(args[1]));
+			Vector<Team> teams = buildTeams(parser, new Random());
+			MarkovEstimator estimator = new MarkovEstimator(parser.getPitchWidth(), parser.getPitchLength(),
+					Settings.ZONE_SIZE);
+			estimator.outputEstimates(teams);
+			return;
+		}
+
 		if (args == null || args.length > 2) {
 			Quit.now("Usage: java STS attributes.txt [s|st|ts|t]");
 		}
-		
+
 		int pitchWidth = 0;
 		int pitchLength = 0;
 		String outputSpec = null;
@@ -19,30 +221,67 @@ public class STS {
 
 		/* Read the input file and store its contents into a single string.
 		 */
-		Input in = new Input(args[0]);
-		String text = in.input2String();
+		String text = readFile(args[0]);
 
 		/* Parse the string to get pitch and team attributes.
 		 */
 		Parser parser = new Parser(text);
-		
+
 		/* Get the pitch and team attributes from the Parser.
 		 */
-		Vector<Team> teams = new Vector<Team>();
 		pitchLength = parser.getPitchLength();
 		pitchWidth = parser.getPitchWidth();
-		final int numTeams = parser.getNumberOfTeams();
-		
-		for (int i=0; i < numTeams; i++) {
-			int numPlayers = parser.getNumberOfPlayers(i);
-			String name = parser.getName(i);
-			Vector<Point2D[]> customRoaming = parser.getCustomRoaming(i);
-			teams.add(new Team(name, Integer.toString(i).charAt(0), numPlayers, pitchWidth, pitchLength, customRoaming));
-		}
+		Vector<Team> teams = buildTeams(parser, (Settings.SEED == null) ? new Random() : new Random(Settings.SEED));
 
 		/* Create a tournament and and play it.
 		 */
 		Tournament tournament = new Tournament(teams, pitchWidth, pitchLength, outputSpec);
+
+		if (Settings.RESULTS_LOG != null)
+			tournament.subscribe(new ResultsLog(teams, Settings.RESULTS_LOG));
+
+		StatsExport statsExport = (Settings.STATS_DIR == null) ? null : new StatsExport(Settings.STATS_DIR);
+		tournament.setStatsExport(statsExport);
 	 	tournament.play();
-	} 
+
+		if (statsExport != null)
+			statsExport.close();
+	}
+
+
+	/* Read an attributes file and store its contents into a single string.
+	 */
+	static String readFile (String fileName) {
+		Input in = new Input(fileName);
+		return in.input2String();
+	}
+
+
+	/* Create the teams whose attributes have been read by a parser. Random roaming
+	   regions are drawn from rosterRandom, so that the workers of a distributed
+	   tournament can build the same roster from the same attributes and seed.
+	 */
+	static Vector<Team> buildTeams (Parser parser, Random rosterRandom) {
+		Vector<Team> teams = new Vector<Team>();
+		final int numTeams = parser.getNumberOfTeams();
+
+		for (int i=0; i < numTeams; i++)
+			teams.add(buildTeam(parser, i, rosterRandom));
+
+		return teams;
+	}
+
+
+	/* Create the ith team whose attributes have been read by a parser.
+	 */
+	static Team buildTeam (Parser parser, int i, Random rosterRandom) {
+		int numPlayers = parser.getNumberOfPlayers(i);
+		String name = parser.getName(i);
+		Vector<Point2D[]> customRoaming = parser.getCustomRoaming(i);
+		Team team = new Team(name, Integer.toString(i).charAt(0), numPlayers, parser.getPitchWidth(),
+				parser.getPitchLength(), customRoaming, rosterRandom);
+		team.setKickModel(parser.getKickModel(i));
+
+		return team;
+	}
 } /* STS */
@@ -0,0 +1,168 @@
+/* A class that writes the scores matrix of a tournament (home teams in rows, away teams in
+   columns) from a ResultsStore, row by row, to a stream. Nothing but the row being written
+   is formatted in memory, so the scores of leagues of any size are written in constant
+   memory. The format is set by the sts.scores setting (see the Settings class):
+
+	table	the scores table of the standard output, with at most sts.scores.page away
+			teams per page (a league of that many teams has a single page)
+	csv		a wide CSV file: a header of the away teams, and a row per home team, with
+			the scores as home-away, and empty cells for games not played
+	sparse	a CSV file with a line "home,away,homeScore,awayScore" per game played, so
+			that the games not played take no space
+ */
+
+import java.io.*;
+import java.util.Vector;
+
+class ScoresWriter {
+	private ResultsStore results;		/* Scores of the games.						*/
+	private Vector<Team> teams;			/* Teams, in the order of the store.		*/
+
+
+	/* Return a team name as a CSV field, quoted if needed.
+	 */
+	static String csv (String name) {
+		if (name.indexOf(',') < 0 && name.indexOf('"') < 0 && name.indexOf('\n') < 0)
+			return name;
+
+		return "\"" + name.replace("\"", "\"\"") + "\"";
+	}
+
+
+	/* Return the name of a team, cut to 12 characters if it is longer than 13.
+	 */
+	private String shortName (int i) {
+		String name = teams.elementAt(i).getName();
+
+		return (name.length() > 13) ? name.substring(0, 12) : name;
+	}
+
+
+	/* Write the scores in a format (table, csv or sparse) to a stream. A table has at
+	   most pageSize away teams per page.
+	 */
+	public void write (String format, int pageSize, PrintWriter out) {
+		if (format.equals("table"))
+			writeTable(pageSize, out);
+		else if (format.equals("csv"))
+			writeCSV(out);
+		else if (format.equals("sparse"))
+			writeSparse(out);
+		else
+			Quit.now("Invalid scores format: " + format);
+
+		out.flush();
+	}
+
+
+	/* Write the scores table, page by page.
+	 */
+	private void writeTable (int pageSize, PrintWriter out) {
+		int n = results.getNumberOfTeams();
+
+		if (pageSize <= 0)
+			Quit.now("The page size of the scores table must be positive.");
+
+		for (int first=0; first < n; first += pageSize) {
+			int last = Math.min(n, first + pageSize);
+
+			out.printf("%20s", " ");
+
+			for (int j=first; j < last; j++)
+				out.printf("%s %2s", shortName(j), " ");
+
+			out.printf("\n");
+
+			for (int i=0; i < 118; i++)
+				out.printf("_");
+
+			out.printf("\n");
+
+			for (int i=0; i < n; i++) {
+				out.printf("%-16s", shortName(i));
+
+				for (int j=first; j < last; j++) {
+					if (i == j)
+						out.printf("%7s %3s ", " ", "---");
+					else if (results.isPlayed(i, j))
+						out.printf("%7s %d-%d ", " ", results.getHomeScore(i, j), results.getAwayScore(i, j));
+					else
+						out.printf("%7s %3s ", " ", " ");
+				}
+
+				out.printf("\n");
+			}
+
+			out.printf("\n");
+		}
+	}
+
+
+	/* Write the scores as a wide CSV file.
+	 */
+	private void writeCSV (PrintWriter out) {
+		int n = results.getNumberOfTeams();
+
+		out.print("home");
+
+		for (int j=0; j < n; j++) {
+			out.print(',');
+			out.print(csv(teams.elementAt(j).getName()));
+		}
+
+		out.println();
+
+		for (int i=0; i < n; i++) {
+			out.print(csv(teams.elementAt(i).getName()));
+
+			for (int j=0; j < n; j++) {
+				out.print(',');
+
+				if (i != j && results.isPlayed(i, j)) {
+					out.print(results.getHomeScore(i, j));
+					out.print('-');
+					out.print(results.getAwayScore(i, j));
+				}
+			}
+
+			out.println();
+		}
+	}
+
+
+	/* Write a CSV line for every game played.
+	 */
+	private void writeSparse (PrintWriter out) {
+		int n = results.getNumberOfTeams();
+
+		out.println("home,away,homeScore,awayScore");
+
+		for (int i=0; i < n; i++) {
+			String home = csv(teams.elementAt(i).getName());
+
+			for (int j=0; j < n; j++) {
+				if (i == j || !results.isPlayed(i, j))
+					continue;
+
+				out.print(home);
+				out.print(',');
+				out.print(csv(teams.elementAt(j).getName()));
+				out.print(',');
+				out.print(results.getHomeScore(i, j));
+				out.print(',');
+				out.println(results.getAwayScore(i, j));
+			}
+		}
+	}
+
+
+	/* Construct a writer of the scores of the given teams.
+	 */
+	public ScoresWriter (ResultsStore newResults, Vector<Team> newTeams) {
+		assert newResults != null && newTeams != null : "Null argument passed to ScoresWriter().";
+		assert newResults.getNumberOfTeams() == newTeams.size() : "Teams do not match the results.";
+
+		results = newResults;
+		teams = newTeams;
+	}
+} /* ScoresWriter */
@@ -0,0 +1,143 @@
+/* A class that decides how many times to replicate a game (with different random numbers)
+   to estimate the outcome of a fixture. Each replicate yields an observation between 0 and
+   1, the share of the points that the home team earned (1 for a win, 0.5 for a draw and 0
+   for a loss), and the test keeps the running mean of the observations.
+
+   The confidence interval of the mean is Wilson's score interval. The variance of the
+   interval is not estimated from the observations but bounded by mean(1 - mean), the
+   largest variance of a variable between 0 and 1 with that mean, so the interval stays
+   wide after a few identical replicates (e.g., four draws, or four wins of a favourite)
+   instead of shrinking to a point, and it never strays outside [0,1].
+
+   After a minimum number of replicates, the test looks at the confidence interval of the
+   mean after every replicate, and stops as soon as either
+
+	- the interval is narrower than the target half width, or
+	- the interval lies entirely above or below 0.5, i.e., the winner of the fixture is
+	  settled,
+
+   or when the maximum number of replicates has been reached. Since the interval is looked
+   at repeatedly, the error probability alpha is split evenly between all the looks that
+   may be taken (a Bonferroni correction), so the chance that any of the looks stops on a
+   wrong interval is at most alpha. Lopsided fixtures are therefore settled after a few
+   replicates, and close fixtures get most of the replicates.
+ */
+
+class SequentialTest {
+	private int minReplicates;		/* Replicates before the first look.					*/
+	private int maxReplicates;		/* Replicates after which the test always stops.		*/
+	private double halfWidth;		/* Target half width of the confidence interval.		*/
+	private double z;				/* Normal quantile used for the interval of every look.	*/
+	private int n;					/* Number of observations.								*/
+	private double mean;			/* Mean of the observations.							*/
+
+
+	/* Add the observation of a replicate.
+	 */
+	public void add (double x) {
+		assert 0 <= x && x <= 1 : "Observation passed to add() is out of range.";
+
+		n++;
+		mean += (x - mean) / n;
+	}
+
+
+	/* Return the number of observations.
+	 */
+	public int getCount () {
+		return n;
+	}
+
+
+	/* Return the mean of the observations.
+	 */
+	public double getMean () {
+		return mean;
+	}
+
+
+	/* Return the center of the current (Wilson) confidence interval of the mean.
+	 */
+	public double getCenter () {
+		double z2n = z * z / n;
+
+		return (mean + z2n / 2) / (1 + z2n);
+	}
+
+
+	/* Return the half width of the current (Wilson) confidence interval of the mean.
+	 */
+	public double getHalfWidth () {
+		if (n < 2)
+			return Double.POSITIVE_INFINITY;
+
+		double z2n = z * z / n;
+
+		return z / (1 + z2n) * Math.sqrt(mean * (1 - mean) / n + z2n / (4 * n));
+	}
+
+
+	/* Return true if no more replicates are needed.
+	 */
+	public boolean done () {
+		if (n >= maxReplicates)
+			return true;
+
+		if (n < minReplicates)
+			return false;
+
+		double c = getCenter();
+		double h = getHalfWidth();
+		return h <= halfWidth || c - h > 0.5 || c + h < 0.5;
+	}
+
+
+	/* Return the probability that a standard normal variable is larger than x >= 0, using
+	   the approximation 26.2.17 of Abramowitz and Stegun (absolute error below 1e-7).
+	 */
+	static double upperTail (double x) {
+		double t = 1 / (1 + 0.2316419 * x);
+		double poly = t * (0.319381530 + t * (-0.356563782 + t * (1.781477937 + t * (-1.821255978 + t * 1.330274429))));
+		return Math.exp(-x * x / 2) / Math.sqrt(2 * Math.PI) * poly;
+	}
+
+
+	/* Return the z such that a standard normal variable is larger than z with probability p,
+	   found by bisection.
+	 */
+	static double quantile (double p) {
+		assert 0 < p && p < 0.5 : "Probability passed to quantile() is out of range.";
+
+		double lo = 0;
+		double hi = 40;
+
+		for (int i=0; i < 100; i++) {
+			double mid = (lo + hi) / 2;
+
+			if (upperTail(mid) > p)
+				lo = mid;
+			else
+				hi = mid;
+		}
+
+		return (lo + hi) / 2;
+	}
+
+
+	/* Construct a test that takes between newMinReplicates and newMaxReplicates
+	   replicates, and stops when the (two-sided, 1-alpha) confidence interval of the mean
+	   is at most newHalfWidth wide on either side, or excludes 0.5.
+	 */
+	public SequentialTest (int newMinReplicates, int newMaxReplicates, double newHalfWidth, double alpha) {
+		assert 2 <= newMinReplicates && newMinReplicates <= newMaxReplicates : "Invalid replicate limits.";
+		assert newHalfWidth > 0 : "Non-positive half width passed to SequentialTest().";
+		assert 0 < alpha && alpha < 1 : "Invalid alpha passed to SequentialTest().";
+
+		minReplicates = newMinReplicates;
+		maxReplicates = newMaxReplicates;
+		halfWidth = newHalfWidth;
+
+		int looks = maxReplicates - minReplicates + 1;
+		z = quantile(alpha / 2 / looks);
+	}
+} /* SequentialTest */
@@ -0,0 +1,147 @@
+/* A class that holds the settings of optional simulation features. Settings are read
+   once from Java system properties, e.g.,
+
+	java -Dsts.metrics=true STS attributes.txt ts
+
+   The settings are constants, so the code of a disabled feature is removed by the JIT
+   compiler and costs nothing on the simulation's hot path.
+ */
+
+class Settings {
+	/* Record counters and phase timers of the simulation (see the Metrics class).
+	 */
+	static final boolean METRICS = Boolean.getBoolean("sts.metrics");
+
+	/* Let the players of the opposing team intercept kicks along the ball's path
+	   (see the BallPhysics class).
+	 */
+	static final boolean INTERCEPTION = Boolean.getBoolean("sts.interception");
+
+	/* Seed of the games of a tournament, or null to seed every game at random. When a
+	   seed is given, the seed of a game is derived from it and the strategies of the
+	   two teams, so the same matchup is always played with the same random numbers. The
+	   random teams of a tournament are then drawn from the seed too.
+	 */
+	static final Long SEED = Long.getLong("sts.seed");
+
+	/* Maximum number of game results to remember, or 0 to remember none (see the
+	   ResultCache class). Results are only reused when the games are seeded.
+	 */
+	static final int CACHE_SIZE = Integer.getInteger("sts.cache.size", 0);
+
+	/* File from which the remembered game results are loaded and to which they are
+	   saved, or null to keep them in memory only.
+	 */
+	static final String CACHE_FILE = System.getProperty("sts.cache.file");
+
+	/* Maximum number of times each fixture of a tournament is played, with different
+	   random numbers. With more than 1, a fixture is replicated until its outcome is
+	   known well enough (see the SequentialTest class), and its recorded score is the
+	   mean score of its replicates, rounded.
+	 */
+	static final int REPLICATES = Integer.getInteger("sts.replicates", 1);
+
+	/* Number of replicates of a fixture before its outcome is first looked at.
+	 */
+	static final int MIN_REPLICATES = Integer.getInteger("sts.replicates.min", 4);
+
+	/* Target half width of the confidence interval of a fixture's home points share.
+	 */
+	static final double HALF_WIDTH = getDouble("sts.replicates.halfwidth", 0.1);
+
+	/* Probability that the outcome of a replicated fixture is outside its final interval.
+	 */
+	static final double ALPHA = getDouble("sts.replicates.alpha", 0.05);
+
+	/* Draw the random numbers of a game from common random number streams: one stream
+	   for the coin that decides between equidistant players, one for the kicks of each
+	   team, and one for the moves of each player, all derived from the game's seed. Two
+	   strategies that meet the same opponent with the same seed then see the same kicks
+	   and moves wherever their players behave alike, so their results are correlated
+	   and their difference is estimated with much less noise.
+	 */
+	static final boolean CRN = Boolean.getBoolean("sts.crn");
+
+	/* Side, in cells, of the zones of the Markov chain that estimates expected goals
+	   (see the MarkovEstimator class).
+	 */
+	static final int ZONE_SIZE = Integer.getInteger("sts.zone", 4);
+
+	/* Number of players (of both teams together) from which a game moves its players
+	   in parallel, or 0 to always move them one at a time (see Game.movePlayersInParallel()).
+	   The results of a game do not depend on the number of threads.
+	 */
+	static final int PARALLEL_MOVES = Integer.getInteger("sts.parallel.moves", 0);
+
+
+	/* Kind of pitch of the games: "dense", a grid of all positions, "sparse", only the
+	   occupied positions (see the SparsePitch class), or "auto", sparse for pitches that
+	   are far larger than the number of players (see Pitch.create()).
+	 */
+	static final String PITCH = System.getProperty("sts.pitch", "auto");
+
+
+	/* Most frames per second of an animated game (see the GameAnimator class).
+	 */
+	static final int ANIMATE_FPS = Integer.getInteger("sts.animate.fps", 30);
+
+	/* Ticks per second to which an animated game is paced, so that it can be watched,
+	   or 0 to play it as fast as possible.
+	 */
+	static final int ANIMATE_TPS = Integer.getInteger("sts.animate.tps", 60);
+
+	/* Most columns and rows of an animated pitch. Larger pitches are scaled down.
+	 */
+	static final int ANIMATE_COLUMNS = Integer.getInteger("sts.animate.columns", 160);
+	static final int ANIMATE_ROWS = Integer.getInteger("sts.animate.rows", 50);
+
+
+	/* Directory to which the statistics of every player in every game of a tournament
+	   are exported (see the StatsExport class), or null to export none.
+	 */
+	static final String STATS_DIR = System.getProperty("sts.stats.dir");
+
+
+	/* Random number generator of the games: "fast", a buffered xoroshiro128++ generator
+	   (see the FastRandom class), or "java", java.util.Random, which reproduces the
+	   results of seeds from earlier versions.
+	 */
+	static final String RANDOM = System.getProperty("sts.random", "fast");
+
+
+	/* Format of the scores of a tournament: "table", "csv" or "sparse", the most away
+	   teams on a page of a table, and the file to which the scores are written, or null
+	   to write them to standard output (see the ScoresWriter class).
+	 */
+	static final String SCORES_FORMAT = System.getProperty("sts.scores", "table");
+	static final int SCORES_PAGE = Integer.getInteger("sts.scores.page", 8);
+	static final String SCORES_FILE = System.getProperty("sts.scores.file");
+
+
+	/* Most game results that a subscriber of a tournament's results may have waiting,
+	   beyond which the games wait for the subscriber (see the ResultSubscriber class),
+	   and the file to which every result of a tournament run from the command line is
+	   logged, or null to log none (see the ResultsLog class). The tournaments of the
+	   daemon, the job service and the rankings are not logged.
+	 */
+	static final int RESULTS_BUFFER = Integer.getInteger("sts.results.buffer", 256);
+	static final String RESULTS_LOG = System.getProperty("sts.results.log");
+
+
+	/* Return the value of a system property as a double, or a default value if it is
+	   not set.
+	 */
+	private static double getDouble (String name, double defaultValue) {
+		String value = System.getProperty(name);
+
+		if (value == null)
+			return defaultValue;
+
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			Quit.now("Invalid value of " + name + ": " + value);
+			return defaultValue;
+		}
+	}
+} /* Settings */
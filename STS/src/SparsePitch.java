@@ -0,0 +1,191 @@
+/* A class that implements a pitch whose positions are stored sparsely, for pitches that
+   are far larger than the number of players on them. A dense pitch holds a reference for
+   every position, e.g., 400 MB for a 10,000 x 10,000 pitch, although only the positions
+   of the players are ever occupied. A sparse pitch holds only the occupied positions, so
+   its memory grows with the number of players rather than the area of the pitch.
+
+   The occupied positions are kept in an open-addressing hash map from positions, packed
+   in a long as (x << 32) | y, to their Objects, in two plain arrays, so a write neither
+   takes a lock nor allocates. Collisions are resolved by linear probing, and a position is
+   removed by shifting the positions that follow it back, so that no deleted markers pile
+   up as the players move. The map doubles when it is half full.
+
+   The map is not synchronized: positions may be read by several threads at once, but
+   only written by one (see supportsConcurrentWrites()).
+ */
+
+import java.util.Arrays;
+
+class SparsePitch extends Pitch {
+	private static final long EMPTY = -1L;		/* Key of a free slot of the map.		*/
+
+	private long [] keys;						/* Packed occupied positions, or EMPTY.	*/
+	private Object [] values;					/* Object at each occupied position.	*/
+	private int mask;							/* Number of slots of the map, minus 1.	*/
+	private int size;							/* Number of occupied positions.		*/
+
+
+	/* Return the slot at which the probe for a packed position starts.
+	 */
+	private int home (long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+	}
+
+
+	/* Return the slot of a packed position, or -1 if it is not occupied.
+	 */
+	private int find (long key) {
+		for (int slot = home(key); keys[slot] != EMPTY; slot = (slot + 1) & mask)
+			if (keys[slot] == key)
+				return slot;
+
+		return -1;
+	}
+
+
+	/* Put a packed position with its Object in the map, which has a free slot.
+	 */
+	private void insert (long key, Object value) {
+		int slot = home(key);
+
+		while (keys[slot] != EMPTY)
+			slot = (slot + 1) & mask;
+
+		keys[slot] = key;
+		values[slot] = value;
+	}
+
+
+	/* Double the number of slots of the map.
+	 */
+	private void grow () {
+		long [] oldKeys = keys;
+		Object [] oldValues = values;
+
+		allocate(2 * oldKeys.length);
+
+		for (int slot=0; slot < oldKeys.length; slot++)
+			if (oldKeys[slot] != EMPTY)
+				insert(oldKeys[slot], oldValues[slot]);
+	}
+
+
+	/* Allocate an empty map with a number of slots that is a power of 2.
+	 */
+	private void allocate (int slots) {
+		keys = new long [slots];
+		values = new Object [slots];
+		mask = slots - 1;
+		Arrays.fill(keys, EMPTY);
+	}
+
+
+	/* Remove the position in a slot, and shift back the positions after it whose probe
+	   passes through the slot.
+	 */
+	private void remove (int slot) {
+		int free = slot;
+
+		for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+			int start = home(keys[next]);
+
+			/* The position in next stays if its probe starts after the free slot.
+			 */
+			boolean stays = (free <= next) ? (free < start && start <= next) : (free < start || start <= next);
+
+			if (!stays) {
+				keys[free] = keys[next];
+				values[free] = values[next];
+				free = next;
+			}
+		}
+
+		keys[free] = EMPTY;
+		values[free] = null;
+		size--;
+	}
+
+
+	/* Check if a point on the pitch is available (i.e., is null).
+	 */
+	public boolean isNull(Point2D position) {
+		assert position != null :"Null point passed to isNull().";
+
+		return find(((long) position.getX() << 32) | position.getY()) < 0;
+	}
+
+
+	/* Return the Object that occupies a specific position on the pitch.
+	 */
+	public Object getObject(Point2D position) {
+		assert position != null : "Null point passed to getObject().";
+
+		return getObject(position.getX(), position.getY());
+	}
+
+
+	/* Return the Object that occupies position (x,y) on the pitch.
+	 */
+	public Object getObject(int x, int y) {
+		assert ((0 <= x) && (x < getPitchWidth()) && (0 <= y) && (y < getPitchLength())) : "Out of pitch bounds in getObject().";
+
+		int slot = find(((long) x << 32) | y);
+
+		return (slot < 0) ? null : values[slot];
+	}
+
+
+	/* Set a point on the pitch to an Object.
+	 */
+	public void setCoordinates(Point2D position, Object o) {
+		assert position != null : "Null point passed to setCoordinates().";
+
+		setCoordinates(position.getX(), position.getY(), o);
+	}
+
+
+	/* Set position (x,y) on the pitch to an Object, or free it if the Object is null.
+	 */
+	public void setCoordinates(int x, int y, Object o) {
+		long key = ((long) x << 32) | y;
+		int slot = find(key);
+
+		if (o == null) {
+			if (slot >= 0)
+				remove(slot);
+		} else if (slot >= 0)
+			values[slot] = o;
+		else {
+			if (2 * (size + 1) > keys.length)
+				grow();
+
+			insert(key, o);
+			size++;
+		}
+	}
+
+
+	/* Positions are written to a shared hash map, so only one thread may write them.
+	 */
+	public boolean supportsConcurrentWrites() {
+		return false;
+	}
+
+
+	/* Return the number of occupied positions.
+	 */
+	public int getNumberOccupied() {
+		return size;
+	}
+
+
+	/* Construct an empty sparse pitch, sized for the given number of occupied positions.
+	 */
+	public SparsePitch(int width, int length, int expectedObjects) {
+		super(width, length, false);
+
+		assert expectedObjects >= 0 : "Negative number of objects passed to SparsePitch().";
+
+		allocate(Integer.highestOneBit(Math.max(8, 4 * expectedObjects - 1)) << 1);
+	}
+} /* SparsePitch */
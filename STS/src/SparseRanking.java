@@ -0,0 +1,325 @@
+/* A class that ranks the teams of a league too large for a full tournament, which takes
+   n(n-1) games, from a sample of k fixtures per team, which takes nk games:
+
+	java STS -sample attributes.txt k [matrix.csv]
+
+   Every team is drawn k random opponents, and plays each of them once, at home and away
+   in turn, so every team plays about 2k games. The strength of the teams is then fitted
+   with a Poisson goals model (Maher's): in a game between a home team i and an away team
+   j, the home team scores a Poisson number of goals with mean h a(i) d(j), and the away
+   team a Poisson number of goals with mean a(j) d(i), where a is the attack of a team,
+   d its defence (the factor by which it multiplies the goals of its opponents, so lower
+   is better), and h the home advantage. The model is fitted by maximum likelihood, with
+   the iterative updates
+
+	a(i) = goals scored by i / sum over i's games of the expected goals per unit of a(i)
+
+   and alike for d and h, which increase the likelihood at every iteration. Every team has
+   a prior of one goal scored and conceded against an average team, so the strength of a
+   team that never scored (or conceded) is finite.
+
+   The teams are ranked by their expected points per game in a full tournament, from the
+   probabilities of the outcomes of their games under the model (against a sample of the
+   teams in large leagues), which takes O(n) time. The predicted scores of every fixture
+   of a full tournament, i.e., the expected goals of both teams, can be written to a CSV
+   file, one row per home team, which takes n^2 entries.
+ */
+
+import java.io.*;
+import java.util.*;
+
+class SparseRanking {
+	private static final int MAX_ITERATIONS = 1000;		/* Most iterations of the fit.					*/
+	private static final double TOLERANCE = 1e-9;		/* Largest relative change at convergence.		*/
+	private static final double PRIOR_GOALS = 1;		/* Goals of the prior against an average team.	*/
+	private static final int REFERENCE_TEAMS = 64;		/* Opponents of the expected points.			*/
+
+	private Vector<Team> teams;			/* Teams of the league.									*/
+	private int numTeams;				/* Number of teams.										*/
+	private Tournament tournament;		/* Plays the fixtures.									*/
+	private int numGames;				/* Number of games played.								*/
+	private int [] home;				/* Home team of each game.								*/
+	private int [] away;				/* Away team of each game.								*/
+	private int [] homeGoals;			/* Goals of the home team in each game.					*/
+	private int [] awayGoals;			/* Goals of the away team in each game.					*/
+	private double [] attack;			/* Fitted attack of each team.							*/
+	private double [] defence;			/* Fitted defence of each team.							*/
+	private double homeAdvantage;		/* Fitted home advantage.								*/
+	private int iterations;				/* Number of iterations of the fit.						*/
+
+
+	/* Play k fixtures per team, against distinct random opponents drawn from r.
+	 */
+	public void play (int k, Random r) {
+		k = Math.min(k, numTeams - 1);
+
+		home = new int [numTeams * k];
+		away = new int [numTeams * k];
+		homeGoals = new int [numTeams * k];
+		awayGoals = new int [numTeams * k];
+		numGames = 0;
+
+		HashSet<Long> fixtures = new HashSet<Long>();
+
+		for (int i=0; i < numTeams; i++) {
+			for (int t=0; t < k; t++) {
+				/* A fixture is played at most once. In dense leagues a few draws may be
+				   needed to find a new one.
+				 */
+				for (int attempt=0; attempt < 20; attempt++) {
+					int j = r.nextInt(numTeams - 1);
+
+					if (j >= i)
+						j++;
+
+					int h = (t % 2 == 0) ? i : j;
+					int a = (t % 2 == 0) ? j : i;
+
+					if (fixtures.add((long) h * numTeams + a)) {
+						int [] score = tournament.playFixture(teams.elementAt(h), teams.elementAt(a));
+
+						home[numGames] = h;
+						away[numGames] = a;
+						homeGoals[numGames] = score[0];
+						awayGoals[numGames] = score[1];
+						numGames++;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+
+	/* Fit the attack and defence of every team, and the home advantage, to the results
+	   of the games played.
+	 */
+	public void fit () {
+		attack = new double [numTeams];
+		defence = new double [numTeams];
+		Arrays.fill(attack, 1);
+		Arrays.fill(defence, 1);
+		homeAdvantage = 1;
+
+		double [] scored = new double [numTeams];
+		double [] conceded = new double [numTeams];
+		double [] exposure = new double [numTeams];
+		long allHomeGoals = 0;
+
+		for (int g=0; g < numGames; g++) {
+			scored[home[g]] += homeGoals[g];
+			scored[away[g]] += awayGoals[g];
+			conceded[home[g]] += awayGoals[g];
+			conceded[away[g]] += homeGoals[g];
+			allHomeGoals += homeGoals[g];
+		}
+
+		for (iterations=1; iterations <= MAX_ITERATIONS; iterations++) {
+			double change = 0;
+
+			/* Attack: the goals a team scored, over the goals it would have scored with
+			   an attack of 1. The prior is a game against an average team.
+			 */
+			Arrays.fill(exposure, PRIOR_GOALS);
+
+			for (int g=0; g < numGames; g++) {
+				exposure[home[g]] += homeAdvantage * defence[away[g]];
+				exposure[away[g]] += defence[home[g]];
+			}
+
+			for (int i=0; i < numTeams; i++) {
+				double a = (scored[i] + PRIOR_GOALS) / exposure[i];
+				change = Math.max(change, Math.abs(a - attack[i]) / attack[i]);
+				attack[i] = a;
+			}
+
+			/* Defence: the goals a team conceded, over the goals it would have conceded
+			   with a defence of 1.
+			 */
+			Arrays.fill(exposure, PRIOR_GOALS);
+
+			for (int g=0; g < numGames; g++) {
+				exposure[away[g]] += homeAdvantage * attack[home[g]];
+				exposure[home[g]] += attack[away[g]];
+			}
+
+			for (int i=0; i < numTeams; i++) {
+				double d = (conceded[i] + PRIOR_GOALS) / exposure[i];
+				change = Math.max(change, Math.abs(d - defence[i]) / defence[i]);
+				defence[i] = d;
+			}
+
+			/* Home advantage: the home goals, over the home goals without advantage.
+			 */
+			double homeExposure = 0;
+
+			for (int g=0; g < numGames; g++)
+				homeExposure += attack[home[g]] * defence[away[g]];
+
+			if (homeExposure > 0 && allHomeGoals > 0) {
+				double h = allHomeGoals / homeExposure;
+				change = Math.max(change, Math.abs(h - homeAdvantage) / homeAdvantage);
+				homeAdvantage = h;
+			}
+
+			if (change < TOLERANCE)
+				break;
+		}
+	}
+
+
+	/* Return the probabilities {win, draw} of a team that scores a Poisson number of
+	   goals with mean mean1 against a team that scores with mean mean2.
+	 */
+	private static double [] outcome (double mean1, double mean2) {
+		double [] p1 = poisson(mean1);
+		double [] p2 = poisson(mean2);
+		double win = 0;
+		double draw = 0;
+		double below = 0;
+
+		for (int g=0; g < p1.length; g++) {
+			win += p1[g] * below;
+
+			if (g < p2.length) {
+				draw += p1[g] * p2[g];
+				below += p2[g];
+			}
+		}
+
+		return new double [] { win, draw };
+	}
+
+
+	/* Return the probabilities of 0 goals up to the mean plus 12 standard deviations of
+	   a Poisson variable, beyond which the probabilities are negligible. They are found
+	   from their logarithms, since e^-mean underflows for the large means of strong teams.
+	 */
+	private static double [] poisson (double mean) {
+		double [] p = new double [(int) (mean + 12 * Math.sqrt(mean)) + 13];
+		double logMean = Math.log(mean);
+		double logP = -mean;
+		p[0] = Math.exp(logP);
+
+		for (int g=1; g < p.length; g++) {
+			logP += logMean - Math.log(g);
+			p[g] = Math.exp(logP);
+		}
+
+		return p;
+	}
+
+
+	/* Return the expected points per game of a team in a full tournament, i.e., against
+	   every other team, at home and away. In large leagues, the other teams are sampled:
+	   every (n / REFERENCE_TEAMS)th team is taken.
+	 */
+	private double expectedPoints (int i) {
+		int step = Math.max(1, numTeams / REFERENCE_TEAMS);
+		double points = 0;
+		int games = 0;
+
+		for (int j=0; j < numTeams; j += step) {
+			if (j == i)
+				continue;
+
+			double [] atHome = outcome(homeAdvantage * attack[i] * defence[j], attack[j] * defence[i]);
+			double [] awayFrom = outcome(attack[i] * defence[j], homeAdvantage * attack[j] * defence[i]);
+
+			points += 3 * atHome[0] + atHome[1] + 3 * awayFrom[0] + awayFrom[1];
+			games += 2;
+		}
+
+		return points / games;
+	}
+
+
+	/* Output the ranked table of the teams: their games and goals in the sample, and
+	   their fitted attack, defence and expected points per game in a full tournament.
+	 */
+	public void outputTable () {
+		final double [] points = new double [numTeams];
+		int [] played = new int [numTeams];
+		int [] scored = new int [numTeams];
+		int [] conceded = new int [numTeams];
+		Integer [] ranking = new Integer [numTeams];
+
+		for (int g=0; g < numGames; g++) {
+			played[home[g]]++;
+			played[away[g]]++;
+			scored[home[g]] += homeGoals[g];
+			scored[away[g]] += awayGoals[g];
+			conceded[home[g]] += awayGoals[g];
+			conceded[away[g]] += homeGoals[g];
+		}
+
+		for (int i=0; i < numTeams; i++) {
+			points[i] = expectedPoints(i);
+			ranking[i] = i;
+		}
+
+		Arrays.sort(ranking, new Comparator<Integer>() {
+			public int compare (Integer a, Integer b) {
+				return Double.compare(points[b], points[a]);
+			}
+		});
+
+		System.out.printf("Played %d of the %d games of a full tournament, fitted in %d iterations, home advantage %.3f.\n",
+				numGames, (long) numTeams * (numTeams - 1), iterations, homeAdvantage);
+		System.out.printf("%6s %-20s %6s %4s %4s %7s %7s %7s\n", "Rank", "Team", "Played", "GF", "GA", "Attack",
+				"Defence", "ExpPts");
+
+		for (int k=0; k < numTeams; k++) {
+			int i = ranking[k];
+			String name = teams.elementAt(i).getName();
+
+			System.out.printf("%6d %-20s %6d %4d %4d %7.3f %7.3f %7.3f\n", k + 1,
+					(name.length() > 20) ? name.substring(0, 20) : name, played[i], scored[i], conceded[i],
+					attack[i], defence[i], points[i]);
+		}
+	}
+
+
+	/* Write the predicted scores of every fixture of a full tournament to a CSV file: a
+	   row per home team, and a column per away team, with the expected goals of both.
+	 */
+	public void writeMatrix (String fileName) {
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(fileName), 1 << 16))) {
+			out.print("home");
+
+			for (int j=0; j < numTeams; j++)
+				out.print("," + ScoresWriter.csv(teams.elementAt(j).getName()));
+
+			out.println();
+
+			for (int i=0; i < numTeams; i++) {
+				out.print(ScoresWriter.csv(teams.elementAt(i).getName()));
+
+				for (int j=0; j < numTeams; j++) {
+					if (i == j)
+						out.print(",");
+					else
+						out.printf(",%.2f-%.2f", homeAdvantage * attack[i] * defence[j], attack[j] * defence[i]);
+				}
+
+				out.println();
+			}
+
+			if (out.checkError())
+				Quit.now("Error writing " + fileName);
+		} catch (IOException e) {
+			Quit.now("Cannot write " + fileName + ": " + e.getMessage());
+		}
+	}
+
+
+	/* Construct a ranking of the given teams on a pitch of the given size.
+	 */
+	public SparseRanking (Vector<Team> newTeams, int pitchWidth, int pitchLength) {
+		assert newTeams != null && newTeams.size() > 1 : "At least 2 teams are needed for a ranking.";
+
+		teams = newTeams;
+		numTeams = teams.size();
+		tournament = new Tournament(teams, pitchWidth, pitchLength, null);
+	}
+} /* SparseRanking */
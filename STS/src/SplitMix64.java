@@ -0,0 +1,17 @@
+/* A class that mixes 64-bit values with the finalizer of the SplitMix64 generator, which
+   spreads every bit of its input over the result. The mix hashes the strategies of teams
+   (see the ResultCache class), derives the seeds of games and of their replicates from
+   the seed of a tournament, and seeds the random number generators of games (see the
+   FastRandom and StreamRandom classes).
+ */
+
+class SplitMix64 {
+	/* Return the hash h combined with the value v.
+	 */
+	static long mix (long h, long v) {
+		long z = h * 31 + v + 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+} /* SplitMix64 */
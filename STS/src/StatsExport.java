@@ -0,0 +1,275 @@
+/* A class that exports the statistics of every player in every game of a tournament, in
+   a compact columnar binary layout, for analysis of many games (e.g., of Monte Carlo or
+   GA runs). The export is enabled with a directory (see the Settings class):
+
+	java -Dsts.stats.dir=stats STS attributes.txt
+
+   Every record is a player in a game, with the columns
+
+	game		number of the game, from 0, in the order the games were played
+	team		team of the player, as an index in the dictionary of team names
+	opponent	opposing team, as an index in the dictionary of team names
+	home		1 if the team played at home, 0 if it played away
+	player		id of the player (1 for the goal keeper)
+	touches		number of touches of the ball by the player in the game
+	goals		number of goals scored by the player in the game
+	ownGoals	number of own goals scored by the player in the game
+
+   The columns are stored in two column groups, one file each: games.col holds the
+   columns that describe the game (game, team, opponent, home), and players.col those
+   that describe the player (player, touches, goals, ownGoals). The team names are stored
+   once, in teams.dict, in the order of their indices.
+
+   The records are written in blocks of up to BLOCK_ROWS records. A block of a group file
+   holds the number of its records, followed by each column of the group as its length in
+   bytes and its values. A column can therefore be skipped without being decoded (see the
+   StatsReader class). Every value is an unsigned varint (7 bits per byte, low bits first,
+   with the high bit set on all bytes but the last). The game and player columns, which
+   mostly grow by 0 or 1 from one record to the next, are stored as zigzag-encoded
+   differences from the previous record of the block. The counters are the increments of
+   the players' cumulative counters over the game, so most of them fit in one byte.
+ */
+
+import java.io.*;
+import java.util.*;
+
+class StatsExport {
+	static final String [] COLUMNS = { "game", "team", "opponent", "home", "player", "touches", "goals", "ownGoals" };
+	static final int [] GROUP = { 0, 0, 0, 0, 1, 1, 1, 1 };				/* Column group of each column.		*/
+	static final boolean [] DELTA = { true, false, false, false, true, false, false, false };	/* Delta coded columns.	*/
+	static final String [] GROUP_FILES = { "games.col", "players.col" };	/* File of each column group.		*/
+	static final String DICTIONARY_FILE = "teams.dict";					/* File of the team names.			*/
+	static final int MAGIC = 0x53545343;								/* "STSC", at the start of a file.	*/
+	static final int VERSION = 1;										/* Version of the layout.			*/
+	static final int BLOCK_ROWS = 4096;									/* Most records of a block.			*/
+
+	private File directory;								/* Directory of the export.					*/
+	private DataOutputStream [] groups;					/* Stream of each column group file.		*/
+	private ByteArrayOutputStream [] columns;			/* Values of each column in the block.		*/
+	private int [] previous;							/* Last value of each column in the block.	*/
+	private int rows;									/* Number of records in the block.			*/
+	private int games;									/* Number of games exported.				*/
+	private long records;								/* Number of records exported.				*/
+	private Vector<String> teamNames;					/* Dictionary of team names.				*/
+	private Hashtable<String,Integer> teamIndices;		/* Index of every team name.				*/
+
+
+	/* Write an int to a stream as an unsigned varint.
+	 */
+	static void writeVarint (OutputStream out, int value) {
+		try {
+			while ((value & ~0x7F) != 0) {
+				out.write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+
+			out.write(value);
+		} catch (IOException e) {
+			Quit.now("Error writing the player statistics: " + e.getMessage());
+		}
+	}
+
+
+	/* Read an unsigned varint from a stream.
+	 */
+	static int readVarint (DataInputStream in) throws IOException {
+		int value = 0;
+
+		for (int shift = 0; ; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0)
+				return value;
+
+			if (shift >= 28)
+				throw new IOException("Malformed varint.");
+		}
+	}
+
+
+	/* Return the cumulative counters (touches, goals, own goals) of the players of a home
+	   team (team1) and an away team (team2), to be passed to record() after their game.
+	 */
+	public int [] counters (Team team1, Team team2) {
+		int size1 = team1.getSize();
+		int [] counters = new int [3 * (size1 + team2.getSize())];
+
+		for (int i=0; i < counters.length / 3; i++) {
+			Player p = (i < size1) ? team1.getPlayer(i) : team2.getPlayer(i - size1);
+
+			counters[3*i] = p.getTouches();
+			counters[3*i + 1] = p.getGoals();
+			counters[3*i + 2] = p.getOwnGoals();
+		}
+
+		return counters;
+	}
+
+
+	/* Return the dictionary index of a team name, adding it if it is new.
+	 */
+	private int teamIndex (String name) {
+		Integer index = teamIndices.get(name);
+
+		if (index == null) {
+			index = teamNames.size();
+			teamNames.add(name);
+			teamIndices.put(name, index);
+		}
+
+		return index;
+	}
+
+
+	/* Add a value to a column of the block.
+	 */
+	private void add (int column, int value) {
+		int coded = value;
+
+		if (DELTA[column]) {
+			int delta = value - previous[column];
+			coded = (delta << 1) ^ (delta >> 31);
+			previous[column] = value;
+		}
+
+		writeVarint(columns[column], coded);
+	}
+
+
+	/* Record the statistics of the players of a home team (team1) and an away team
+	   (team2) in the game they have just played, given their cumulative counters before
+	   the game. Games may be recorded by several threads at once.
+	 */
+	public synchronized void record (Team team1, Team team2, int [] before) {
+		assert before != null : "Null counters passed to record().";
+
+		int [] after = counters(team1, team2);
+
+		assert after.length == before.length : "Teams changed size during a game.";
+
+		int index1 = teamIndex(team1.getName());
+		int index2 = teamIndex(team2.getName());
+		int size1 = team1.getSize();
+
+		for (int i=0; i < after.length / 3; i++) {
+			boolean home = i < size1;
+			Player p = home ? team1.getPlayer(i) : team2.getPlayer(i - size1);
+
+			add(0, games);
+			add(1, home ? index1 : index2);
+			add(2, home ? index2 : index1);
+			add(3, home ? 1 : 0);
+			add(4, p.getId());
+
+			for (int c=0; c < 3; c++)
+				add(5 + c, after[3*i + c] - before[3*i + c]);
+
+			if (++rows == BLOCK_ROWS)
+				flushBlock();
+		}
+
+		games++;
+	}
+
+
+	/* Write the records of the block to the column group files, and start a new block.
+	 */
+	private void flushBlock () {
+		if (rows == 0)
+			return;
+
+		try {
+			for (int g=0; g < groups.length; g++) {
+				writeVarint(groups[g], rows);
+
+				for (int c=0; c < COLUMNS.length; c++) {
+					if (GROUP[c] != g)
+						continue;
+
+					writeVarint(groups[g], columns[c].size());
+					columns[c].writeTo(groups[g]);
+				}
+			}
+		} catch (IOException e) {
+			Quit.now("Error writing the player statistics: " + e.getMessage());
+		}
+
+		records += rows;
+		rows = 0;
+
+		for (int c=0; c < COLUMNS.length; c++) {
+			columns[c].reset();
+			previous[c] = 0;
+		}
+	}
+
+
+	/* Write the last block and the dictionary, and close the files of the export.
+	 */
+	public synchronized void close () {
+		flushBlock();
+
+		try {
+			for (DataOutputStream group : groups)
+				group.close();
+
+			DataOutputStream dictionary = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(new File(directory, DICTIONARY_FILE))));
+			dictionary.writeInt(MAGIC);
+			dictionary.writeByte(VERSION);
+			dictionary.writeInt(teamNames.size());
+
+			for (String name : teamNames)
+				dictionary.writeUTF(name);
+
+			dictionary.close();
+		} catch (IOException e) {
+			Quit.now("Error writing the player statistics: " + e.getMessage());
+		}
+
+		if (Settings.METRICS) {
+			long bytes = 0;
+
+			for (String name : GROUP_FILES)
+				bytes += new File(directory, name).length();
+
+			System.err.printf("    Player statistics: %d records of %d games, %d bytes\n", records, games, bytes);
+		}
+	}
+
+
+	/* Construct an export to the column group files of a directory, which is created if
+	   it does not exist. Existing files of an export are replaced.
+	 */
+	public StatsExport (String directoryName) {
+		assert directoryName != null : "Null directory passed to StatsExport().";
+
+		directory = new File(directoryName);
+
+		if (!directory.isDirectory() && !directory.mkdirs())
+			Quit.now("Cannot create the statistics directory " + directoryName);
+
+		groups = new DataOutputStream [GROUP_FILES.length];
+
+		try {
+			for (int g=0; g < groups.length; g++) {
+				groups[g] = new DataOutputStream(new BufferedOutputStream(
+						new FileOutputStream(new File(directory, GROUP_FILES[g])), 1 << 16));
+				groups[g].writeInt(MAGIC);
+				groups[g].writeByte(VERSION);
+			}
+		} catch (IOException e) {
+			Quit.now("Cannot create the statistics files in " + directoryName + ": " + e.getMessage());
+		}
+
+		columns = new ByteArrayOutputStream [COLUMNS.length];
+
+		for (int c=0; c < COLUMNS.length; c++)
+			columns[c] = new ByteArrayOutputStream(BLOCK_ROWS);
+
+		previous = new int [COLUMNS.length];
+		teamNames = new Vector<String>();
+		teamIndices = new Hashtable<String,Integer>();
+	}
+} /* StatsExport */
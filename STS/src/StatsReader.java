@@ -0,0 +1,229 @@
+/* A class that reads the player statistics exported by the StatsExport class, decoding
+   only the columns that are asked for. The files of the column groups without a wanted
+   column are not opened, and the unwanted columns of the other groups are skipped by
+   their lengths, without being decoded. The records are read block by block:
+
+	StatsReader reader = new StatsReader("stats", new String [] { "team", "goals" });
+
+	while (reader.nextBlock())
+		for (int i=0; i < reader.getRows(); i++)
+			... reader.getColumn("goals")[i] ...
+
+   The reader can also write the wanted columns as CSV, for scripts:
+
+	java STS -stats directory [column,column,...]
+ */
+
+import java.io.*;
+import java.util.*;
+
+class StatsReader {
+	private File directory;							/* Directory of the export.						*/
+	private boolean [] wanted;						/* True for each column to decode.				*/
+	private DataInputStream [] groups;				/* Stream of each group with a wanted column.	*/
+	private int [][] values;						/* Decoded values of each wanted column.		*/
+	private int rows;								/* Number of records in the current block.		*/
+	private String [] teamNames;					/* Dictionary of team names.					*/
+
+
+	/* Return the index of a column, quitting if there is no such column.
+	 */
+	private static int columnIndex (String name) {
+		for (int c=0; c < StatsExport.COLUMNS.length; c++)
+			if (StatsExport.COLUMNS[c].equals(name))
+				return c;
+
+		Quit.now("Unknown statistics column: " + name);
+		return -1;
+	}
+
+
+	/* Open a file of the export and check its header.
+	 */
+	private DataInputStream open (String name) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(directory, name)), 1 << 16));
+
+		if (in.readInt() != StatsExport.MAGIC || in.readUnsignedByte() != StatsExport.VERSION)
+			Quit.now(name + " is not a player statistics file of this version.");
+
+		return in;
+	}
+
+
+	/* Read the next block of records. Return false if there are no more blocks.
+	 */
+	public boolean nextBlock () {
+		try {
+			rows = -1;
+
+			for (int g=0; g < groups.length; g++) {
+				if (groups[g] == null)
+					continue;
+
+				int groupRows;
+
+				try {
+					groupRows = StatsExport.readVarint(groups[g]);
+				} catch (EOFException e) {
+					return false;
+				}
+
+				if (rows >= 0 && groupRows != rows)
+					Quit.now("The column groups of " + directory + " are not aligned.");
+
+				rows = groupRows;
+
+				for (int c=0; c < StatsExport.COLUMNS.length; c++) {
+					if (StatsExport.GROUP[c] != g)
+						continue;
+
+					int length = StatsExport.readVarint(groups[g]);
+
+					if (!wanted[c]) {
+						groups[g].skipNBytes(length);
+						continue;
+					}
+
+					if (values[c] == null || values[c].length < rows)
+						values[c] = new int [Math.max(rows, StatsExport.BLOCK_ROWS)];
+
+					decode(groups[g], c);
+				}
+			}
+		} catch (IOException e) {
+			Quit.now("Error reading the player statistics in " + directory + ": " + e.getMessage());
+		}
+
+		return rows >= 0;
+	}
+
+
+	/* Decode the values of a column of the current block.
+	 */
+	private void decode (DataInputStream in, int column) throws IOException {
+		int [] decoded = values[column];
+		int previous = 0;
+
+		for (int i=0; i < rows; i++) {
+			int coded = StatsExport.readVarint(in);
+
+			if (StatsExport.DELTA[column]) {
+				previous += (coded >>> 1) ^ -(coded & 1);
+				decoded[i] = previous;
+			} else
+				decoded[i] = coded;
+		}
+	}
+
+
+	/* Return the number of records in the current block.
+	 */
+	public int getRows () {
+		return rows;
+	}
+
+
+	/* Return the values of a wanted column in the current block. Only the first getRows()
+	   values are of the block.
+	 */
+	public int [] getColumn (String name) {
+		int c = columnIndex(name);
+
+		assert wanted[c] : "Column " + name + " was not read.";
+
+		return values[c];
+	}
+
+
+	/* Return the name of the team with a dictionary index.
+	 */
+	public String getTeamName (int index) {
+		assert 0 <= index && index < teamNames.length : "Invalid team index passed to getTeamName().";
+
+		return teamNames[index];
+	}
+
+
+	/* Close the files of the export.
+	 */
+	public void close () {
+		try {
+			for (DataInputStream group : groups)
+				if (group != null)
+					group.close();
+		} catch (IOException e) {
+			Quit.now("Error closing the player statistics: " + e.getMessage());
+		}
+	}
+
+
+	/* Write the wanted columns of every record to standard output, as CSV with a header.
+	   Teams are written by name.
+	 */
+	public void writeCSV (String [] columnNames) {
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+		int [] indices = new int [columnNames.length];
+
+		for (int k=0; k < columnNames.length; k++) {
+			indices[k] = columnIndex(columnNames[k]);
+			out.print((k > 0 ? "," : "") + columnNames[k]);
+		}
+
+		out.println();
+
+		while (nextBlock()) {
+			for (int i=0; i < rows; i++) {
+				for (int k=0; k < indices.length; k++) {
+					if (k > 0)
+						out.print(',');
+
+					int value = values[indices[k]][i];
+					String column = columnNames[k];
+
+					if (column.equals("team") || column.equals("opponent"))
+						out.print(teamNames[value]);
+					else
+						out.print(value);
+				}
+
+				out.println();
+			}
+		}
+
+		out.flush();
+	}
+
+
+	/* Construct a reader of the given columns of the player statistics in a directory.
+	 */
+	public StatsReader (String directoryName, String [] columnNames) {
+		assert directoryName != null && columnNames != null : "Null argument passed to StatsReader().";
+
+		directory = new File(directoryName);
+		wanted = new boolean [StatsExport.COLUMNS.length];
+		values = new int [StatsExport.COLUMNS.length][];
+		groups = new DataInputStream [StatsExport.GROUP_FILES.length];
+
+		for (String name : columnNames)
+			wanted[columnIndex(name)] = true;
+
+		try {
+			for (int c=0; c < wanted.length; c++) {
+				int g = StatsExport.GROUP[c];
+
+				if (wanted[c] && groups[g] == null)
+					groups[g] = open(StatsExport.GROUP_FILES[g]);
+			}
+
+			DataInputStream dictionary = open(StatsExport.DICTIONARY_FILE);
+			teamNames = new String [dictionary.readInt()];
+
+			for (int i=0; i < teamNames.length; i++)
+				teamNames[i] = dictionary.readUTF();
+
+			dictionary.close();
+		} catch (IOException e) {
+			Quit.now("Cannot read the player statistics in " + directoryName + ": " + e.getMessage());
+		}
+	}
+} /* StatsReader */
@@ -0,0 +1,108 @@
+/* A class that compares the strategies of two teams by playing both of them against the
+   same opponents, at home and away, with the same seeds. For every game the difference
+   between the points earned by the two strategies (3 for a win, 1 for a draw) is recorded,
+   and the mean difference is reported with its 95% confidence interval.
+
+   Since both strategies play each opponent with the same seed, the differences are paired.
+   With common random numbers (see the Settings class) the paired games also draw the same
+   kicks and moves wherever the strategies behave alike, so the differences are less noisy
+   and fewer games are needed to tell the strategies apart:
+
+	java -Dsts.crn=true STS -compare attributes.txt first second games
+ */
+
+import java.util.*;
+
+class StrategyComparison {
+	private Vector<Team> teams;		/* Teams: the two compared strategies and their opponents.	*/
+	private int pitchWidth;			/* Width of the pitch of every game.						*/
+	private int pitchLength;		/* Length of the pitch of every game.						*/
+	private Random seeds;			/* Generates the seed of each pair of games.				*/
+
+
+	/* Return the points earned by a team that scored 'scored' and conceded 'conceded'.
+	 */
+	private static int points (int scored, int conceded) {
+		if (scored > conceded)
+			return 3;
+		else if (scored == conceded)
+			return 1;
+		else
+			return 0;
+	}
+
+
+	/* Play a game between a home team (team1) and an away team (team2), with the given
+	   seed, on a new pitch with a new ball.
+	 */
+	private Game playGame (Team team1, Team team2, long seed) {
+		Pitch pitch = Pitch.create(pitchWidth, pitchLength, team1.getSize() + team2.getSize());
+		Ball ball = new Ball(new Point2D(pitchWidth/2, pitchLength/2));
+
+		return new Game(team1, team2, ball, pitch, seed);
+	}
+
+
+	/* Compare the strategies of the teams with indices first and second, by playing each
+	   of them 'games' times at home and 'games' times away against every other team.
+	   Output the mean points difference (first minus second) per game.
+	 */
+	public void compare (int first, int second, int games) {
+		assert 0 <= first && first < teams.size() && 0 <= second && second < teams.size() && first != second :
+			"Invalid teams passed to compare().";
+		assert games > 0 : "Non-positive number of games passed to compare().";
+
+		Team a = teams.get(first);
+		Team b = teams.get(second);
+		int n = 0;
+		double mean = 0;
+		double m2 = 0;
+
+		for (int i=0; i < teams.size(); i++) {
+			if (i == first || i == second)
+				continue;
+
+			Team opponent = teams.get(i);
+
+			for (int g=0; g < games; g++) {
+				long homeSeed = seeds.nextLong();
+				long awaySeed = seeds.nextLong();
+
+				Game ga = playGame(a, opponent, homeSeed);
+				Game gb = playGame(b, opponent, homeSeed);
+				int home = points(ga.getTeam1Score(), ga.getTeam2Score()) - points(gb.getTeam1Score(), gb.getTeam2Score());
+
+				ga = playGame(opponent, a, awaySeed);
+				gb = playGame(opponent, b, awaySeed);
+				int away = points(ga.getTeam2Score(), ga.getTeam1Score()) - points(gb.getTeam2Score(), gb.getTeam1Score());
+
+				int [] differences = { home, away };
+
+				for (int d : differences) {
+					n++;
+					double delta = d - mean;
+					mean += delta / n;
+					m2 += delta * (d - mean);
+				}
+			}
+		}
+
+		double halfWidth = (n < 2) ? 0 : 1.96 * Math.sqrt(m2 / (n - 1) / n);
+
+		System.out.printf("%s vs %s: %d paired games, common random numbers %s\n", a.getName(), b.getName(), n,
+				Settings.CRN ? "on" : "off");
+		System.out.printf("Points difference per game: %.3f +/- %.3f\n", mean, halfWidth);
+	}
+
+
+	/* Construct a comparison among the given teams on a pitch of the given size.
+	 */
+	public StrategyComparison (Vector<Team> newTeams, int newPitchWidth, int newPitchLength) {
+		assert newTeams != null && newTeams.size() > 2 : "At least 3 teams are needed for a comparison.";
+
+		teams = newTeams;
+		pitchWidth = newPitchWidth;
+		pitchLength = newPitchLength;
+		seeds = (Settings.SEED == null) ? new Random() : new Random(Settings.SEED);
+	}
+} /* StrategyComparison */
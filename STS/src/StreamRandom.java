@@ -0,0 +1,44 @@
+/* A class that implements a random number stream for common random numbers (see the
+   Settings class). The numbers of the stream are a hash of its key, the current tick of the
+   game and a counter, so every tick of a game starts a new sequence of numbers that does
+   not depend on how many numbers were drawn in earlier ticks. Two games with the same
+   seed therefore draw the same numbers in the same tick, even after their plays have
+   diverged. The hash is the SplitMix64 generator.
+ */
+
+import java.util.Random;
+
+class StreamRandom extends Random {
+	private static final long serialVersionUID = 1L;
+
+	private long key;		/* Key of the stream, derived from the game's seed.	*/
+	private long state;		/* Current state of the sequence of the tick.		*/
+
+
+	/* Start the sequence of numbers of a tick.
+	 */
+	public void reset (long tick) {
+		state = SplitMix64.mix(key, tick);
+	}
+
+
+	/* Return the next 'bits' random bits. All the other methods of Random draw their
+	   numbers from this method.
+	 */
+	protected int next (int bits) {
+		state += 0x9e3779b97f4a7c15L;
+		long z = state;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		z = z ^ (z >>> 31);
+		return (int) (z >>> (64 - bits));
+	}
+
+
+	/* Construct a stream with the given key, positioned at the start of tick 0.
+	 */
+	public StreamRandom (long newKey) {
+		key = newKey;
+		reset(0);
+	}
+} /* StreamRandom */
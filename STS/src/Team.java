@@ -12,6 +12,7 @@ public class Team {
 	private Player [] players;				/* Players on the team.										*/
 	private int goal;						/* Team's goal identifier, value is 1 (home) or 2 (away). 	*/
 	private int pitchWidth, pitchLength;	/* Length and width of the pitch.							*/
+	private KickModel kickModel;			/* Distribution of the kicks of the team's players.			*/
 
 
 	/* Return the identifier for the goal of the team.
@@ -84,6 +85,23 @@ public class Team {
 	}
 
 
+	/* Return the kick model of the team.
+	 */
+	public KickModel getKickModel () {
+		return kickModel;
+	}
+
+
+	/* Set the kick model of the team. A null kick model selects the default kicks.
+	 */
+	public void setKickModel (KickModel newKickModel) {
+		if (newKickModel == null)
+			kickModel = KickModel.DEFAULT;
+		else
+			kickModel = newKickModel;
+	}
+
+
 	/* Sanity check to ensure that the area of the assigned roaming region is less than the maximum area.
 	 */
  	public boolean roamingRegionsOK () {
@@ -91,11 +109,10 @@ public class Team {
 		int maxGoalkeeperArea = (pitchWidth*4/6) * (pitchLength/6);
 
         for (int i=0; i < teamSize; i++) {
-            Point2D [] points = players[i].getRoamingCoordinates();
-			int x1 = points[0].getX();
-			int y1 = points[0].getY();
-			int x4 = points[3].getX();
-			int y4 = points[3].getY();
+			int x1 = players[i].getRoamingX1();
+			int y1 = players[i].getRoamingY1();
+			int x4 = players[i].getRoamingX4();
+			int y4 = players[i].getRoamingY4();
 
 			if (i == 0) {
 				if (Math.abs(x4-x1) * Math.abs(y1-y4) > maxGoalkeeperArea) {
@@ -133,6 +150,16 @@ public class Team {
 	/* Construct and initialize a team.
 	 */
 	public Team (String newName, char newTeamId, int numPlayers, int newPitchWidth, int newPitchLength, Vector<Point2D[]> customRoaming) {
+		this(newName, newTeamId, numPlayers, newPitchWidth, newPitchLength, customRoaming, new Random());
+	}
+
+
+	/* Construct and initialize a team whose random roaming regions (if any) are drawn
+	   from the random number generator rosterRandom. Teams built in the same order from
+	   generators with the same seed have identical roaming regions.
+	 */
+	public Team (String newName, char newTeamId, int numPlayers, int newPitchWidth, int newPitchLength, Vector<Point2D[]> customRoaming, 
+			Random rosterRandom) {
 		pitchWidth = newPitchWidth;
 		pitchLength = newPitchLength;
 		/* Sanity check the input parameters */
@@ -143,6 +170,7 @@ public class Team {
 		name = newName;
 		teamId = newTeamId;
 		teamSize = numPlayers;
+		kickModel = KickModel.DEFAULT;
 
 		/* allocate the array of players */
 		players = new Player[numPlayers];
@@ -156,7 +184,7 @@ public class Team {
 			if (isCustomRoaming) 
 				customRoamingCoordinates = customRoaming.get(i);
 
-			players[i] = new Player(this, i+1, pitchWidth, pitchLength, customRoamingCoordinates);
+			players[i] = new Player(this, i+1, pitchWidth, pitchLength, customRoamingCoordinates, rosterRandom);
 		}
 	}
 
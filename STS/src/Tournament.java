@@ -5,7 +5,9 @@
    Author: Spiros Mancoridis (c) 2011
  */
 
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 class Tournament {
 	private int numTeams;		    					/* Number of teams in the tournament. 	  	    			*/
@@ -16,47 +18,41 @@ class Tournament {
 	private Vector<Team> teams;		    				/* Vector of teams participating in the tournament.	    	*/
 	private boolean outputScores;						/* Keeps track of whether scores should be output.			*/
 	private boolean outputStandings;					/* Keeps track of whether standings should be output 		*/
-
-
-	/* Output a scores table of the teams in the tournament, complete with the home (rows)
-	   and away (columns) results between every pair of teams in the tournament.
+	private Random seeds;								/* Generates the random number seed of each game.			*/
+	private Hashtable<Team,Long> fingerprints;			/* Fingerprint of the strategy of each team.				*/
+	private ResultCache cache;							/* Results of earlier games, or null if not remembered.		*/
+	private long replicates;							/* Number of games played (or looked up) for all fixtures.	*/
+	private StatsExport statsExport;					/* Export of the players' statistics, or null.				*/
+	private Hashtable<Team,Integer> teamIndices;		/* Index of each team in teams.								*/
+	private ResultsStore results;						/* Scores of the games played, or null if not output.		*/
+	private PrintStream out;							/* Stream to which the tables are output.					*/
+	private SubmissionPublisher<GameResult> publisher;	/* Publisher of the results, created when first needed.		*/
+	private Vector<ResultSubscriber> subscribers;		/* Subscribers to the results.								*/
+
+
+	/* Output the scores of the games between every pair of teams in the tournament, home
+	   teams in rows and away teams in columns, in the format and to the file (or standard
+	   output) given by the settings (see the ScoresWriter class).
 	 */
-	void outputScoresTable (TeamRecord [] teamRecords) {
+	void outputScoresTable () {
 		if (!outputScores) return;
-		System.out.printf("%20s", " ");
-
-		for (int i=0; i < numTeams; i++) {
-			Team team = teams.elementAt(i);
-			int end = team.getName().length();
-			if (end > 13) end = 12;	
-			System.out.printf("%s %2s", team.getName().substring(0,end), " ");
-		}
 
-		System.out.printf("\n");
+		ScoresWriter writer = new ScoresWriter(results, teams);
 
-		for (int i=0; i < 118; i++)
-			System.out.printf ("_"); 
+		if (Settings.SCORES_FILE == null) {
+			writer.write(Settings.SCORES_FORMAT, Settings.SCORES_PAGE, new PrintWriter(new BufferedWriter(
+					new OutputStreamWriter(out), 1 << 16)));
+			return;
+		}
 
-		System.out.printf ("\n"); 
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(Settings.SCORES_FILE), 1 << 16))) {
+			writer.write(Settings.SCORES_FORMAT, Settings.SCORES_PAGE, out);
 
-		for (int i=0; i < numTeams; i++) {
-			Team homeTeam = teams.elementAt(i);
-			int end = homeTeam.getName().length();
-			end = (end > 13) ? 12 : end;	// cut the name of the team to 12 characters maximum
-			
-			System.out.printf("%-16s", homeTeam.getName().substring(0,end));
-			TeamRecord homeTeamRecord = teamStats.get(homeTeam);
-
-			for (int j=0; j < numTeams; j++) {
-				if (i != j) {
-					Team awayTeam = teams.elementAt(j);
-					TeamResult tres = homeTeamRecord.getScore(awayTeam);
-					System.out.printf("%7s %d-%d ", " ", tres.getHomeScore(), tres.getAwayScore());
-				} else System.out.printf("%7s %3s ", " ", "---"); 
-			}
-			System.out.printf("\n");
+			if (out.checkError())
+				Quit.now("Error writing the scores to " + Settings.SCORES_FILE);
+		} catch (IOException e) {
+			Quit.now("Cannot write the scores to " + Settings.SCORES_FILE + ": " + e.getMessage());
 		}
-		System.out.printf("\n");
 	}
 
 
@@ -69,22 +65,22 @@ class Tournament {
 
 		/* Output the standings table header. 
 		 */
-		System.out.printf("%20s %15s %27s %30s\n", " ", "HOME", "AWAY", "OVERALL");
-		System.out.printf("%-20s", "TEAM");
-		System.out.printf ("%4s %4s %4s %4s %4s    ", "W", "D", "L", "GS", "GA"); 
-		System.out.printf ("%4s %4s %4s %4s %4s    ", "W", "D", "L", "GS", "GA"); 
-		System.out.printf ("%4s %4s %4s %4s %4s %4s    ", "P", "W", "D", "L", "GS", "GA");
-		System.out.printf ("%4s %4s\n", "GD", "PTS"); 
+		out.printf("%20s %15s %27s %30s\n", " ", "HOME", "AWAY", "OVERALL");
+		out.printf("%-20s", "TEAM");
+		out.printf ("%4s %4s %4s %4s %4s    ", "W", "D", "L", "GS", "GA"); 
+		out.printf ("%4s %4s %4s %4s %4s    ", "W", "D", "L", "GS", "GA"); 
+		out.printf ("%4s %4s %4s %4s %4s %4s    ", "P", "W", "D", "L", "GS", "GA");
+		out.printf ("%4s %4s\n", "GD", "PTS"); 
 
 		for (int i=0; i < 118; i++)
-			System.out.printf ("_"); 
+			out.printf ("_"); 
 		
-		System.out.printf ("\n"); 
+		out.printf ("\n"); 
 
 		/* Output the rest of the standings table. 
 		 */
 		for (int i=0; i < teamRecords.length; i++) {
-			teamRecords[i].outputRecord();
+			teamRecords[i].outputRecord(out);
 		}
 	} 
 
@@ -129,52 +125,272 @@ class Tournament {
 				 */
 				if (i == j) continue; 
 
-				/* Every game is played on a new pitch and with a new ball.
-				 */
-				Pitch pitch = new Pitch(pitchWidth, pitchLength);
-		        Ball ball = new Ball(new Point2D(pitchWidth/2, pitchLength/2));
-
-				/* Play the game ...
+				/* Play the game (or look up its result) ...
 				 */
-				Game g = new Game(team1, team2, ball, pitch);
-				
-				assert team1.roamingRegionsOK() : "Team " + team1.getName() + " has an invalid roaming region.";
-				assert team2.roamingRegionsOK() : "Team " + team2.getName() + " has an invalid roaming region.";
-				assert team1.getSize() == team2.getSize() : "Teams have an unequal number of players.";
+				int [] score = playFixture(team1, team2);
 
 				/* Get the final score, and record it.
 				 */
-				int team1Score = g.getTeam1Score();
-				int team2Score = g.getTeam2Score();
-				
+				recordResult(team1, team2, score[0], score[1]);
+			}
+	
+		}
+
+		outputResults();
+		Metrics.printSummary();
+
+		if (Settings.METRICS && Settings.REPLICATES > 1)
+			System.err.printf("    Replicates: %d games for %d fixtures\n", replicates, numTeams * (numTeams - 1));
+
+		if (cache != null) {
+			if (Settings.METRICS)
+				System.err.printf("    Result cache: %d hits, %d misses, %d results\n", cache.getHits(),
+						cache.getMisses(), cache.size());
+
+			if (Settings.CACHE_FILE != null)
+				cache.save(Settings.CACHE_FILE);
+		}
+	}
+
+
+	/* Return the scores {home, away} of the fixture between a home team (team1) and an
+	   away team (team2). Unless replicates are enabled, the fixture is a single game.
+	   Otherwise, the game is replicated with different seeds until a sequential test of
+	   the home team's points share is satisfied. The fixture is a home win if the home
+	   team won more replicates than it lost (its share is above 0.5), an away win if it
+	   won fewer, and a draw otherwise, and the score returned is the mean score of the
+	   replicates with that outcome, rounded, which has the same outcome. A draw without
+	   any drawn replicate scores the mean goals per team of all replicates, rounded.
+	 */
+	int [] playFixture (Team team1, Team team2) {
+		long seed = gameSeed(team1, team2);
+
+		if (Settings.REPLICATES <= 1) {
+			replicates++;
+			return playCachedGame(team1, team2, seed);
+		}
+
+		int maxReplicates = Math.max(2, Settings.REPLICATES);
+		int minReplicates = Math.max(2, Math.min(Settings.MIN_REPLICATES, maxReplicates));
+		SequentialTest test = new SequentialTest(minReplicates, maxReplicates, Settings.HALF_WIDTH, Settings.ALPHA);
+		long [] goals1 = new long[3];		/* Home goals of the wins, draws and losses.	*/
+		long [] goals2 = new long[3];		/* Away goals of the wins, draws and losses.	*/
+		int [] outcomes = new int[3];		/* Number of wins, draws and losses.			*/
+
+		for (int k=0; !test.done(); k++) {
+			/* Replicate seeds are derived from the fixture seed, so seeded fixtures
+			   replay the same replicates (and can find them in the result cache).
+			 */
+			int [] score = playCachedGame(team1, team2, (k == 0) ? seed : SplitMix64.mix(seed, k));
+
+			int outcome = (score[0] > score[1]) ? 0 : (score[0] == score[1]) ? 1 : 2;
+
+			goals1[outcome] += score[0];
+			goals2[outcome] += score[1];
+			outcomes[outcome]++;
+			test.add(1 - outcome / 2.0);
+		}
+
+		int n = test.getCount();
+		replicates += n;
+
+		int settled = (outcomes[0] > outcomes[2]) ? 0 : (outcomes[0] < outcomes[2]) ? 2 : 1;
+
+		if (outcomes[settled] == 0) {
+			int goals = (int) Math.round((double) (goals1[0] + goals2[0] + goals1[2] + goals2[2]) / (2 * n));
+			return new int [] { goals, goals };
+		}
+
+		return new int [] { (int) Math.round((double) goals1[settled] / outcomes[settled]),
+				(int) Math.round((double) goals2[settled] / outcomes[settled]) };
+	}
+
+
+	/* Return the seed of a game between a home team (team1) and an away team (team2). 
+	   Unless a tournament seed is set, every game gets a new random seed.
+	 */
+	long gameSeed (Team team1, Team team2) {
+		if (Settings.SEED == null)
+			return seeds.nextLong();
+
+		return SplitMix64.mix(SplitMix64.mix(Settings.SEED, fingerprints.get(team1)), fingerprints.get(team2));
+	}
+
+
+	/* Return the scores {home, away} of a game between a home team (team1) and an away
+	   team (team2), played with the given seed. If the same strategies have already met 
+	   with the same seed, the remembered result is returned and the game is not played;
+	   the teams are still set up as the game would have set them up.
+	 */
+	int [] playCachedGame (Team team1, Team team2, long seed) {
+		long fingerprint1 = 0, fingerprint2 = 0;
+
+		if (cache != null) {
+			fingerprint1 = fingerprints.get(team1);
+			fingerprint2 = fingerprints.get(team2);
+
+			int [] score = cache.get(fingerprint1, fingerprint2, pitchWidth, pitchLength, seed);
+
+			if (score != null) {
+				team1.setGoal(1);
+				team1.setPlayersRoamingCoordinates();
+				team2.setGoal(2);
+				team2.setPlayersRoamingCoordinates();
+				return score;
+			}
+		}
+
+		Game g = playGame(team1, team2, seed);
+
+		if (cache != null)
+			cache.put(fingerprint1, fingerprint2, pitchWidth, pitchLength, seed, g.getTeam1Score(), g.getTeam2Score());
+
+		return new int [] { g.getTeam1Score(), g.getTeam2Score() };
+	}
+
+
+	/* Play a single game between a home team (team1) and an away team (team2), using
+	   random numbers drawn from a generator with the given seed. 
+	 */
+	Game playGame (Team team1, Team team2, long seed) {
+		/* Every game is played on a new pitch and with a new ball.
+		 */
+		Pitch pitch = Pitch.create(pitchWidth, pitchLength, team1.getSize() + team2.getSize());
+		Ball ball = new Ball(new Point2D(pitchWidth/2, pitchLength/2));
+
+		int [] counters = (statsExport != null) ? statsExport.counters(team1, team2) : null;
+
+		Game g = new Game(team1, team2, ball, pitch, seed);
+
+		if (statsExport != null)
+			statsExport.record(team1, team2, counters);
+		
+		assert team1.roamingRegionsOK() : "Team " + team1.getName() + " has an invalid roaming region.";
+		assert team2.roamingRegionsOK() : "Team " + team2.getName() + " has an invalid roaming region.";
+		assert team1.getSize() == team2.getSize() : "Teams have an unequal number of players.";
+
+		return g;
+	}
+
+
+	/* Output the tables of the tournament to the given stream, instead of the standard
+	   output.
+	 */
+	void setOutput (PrintStream newOut) {
+		assert newOut != null : "Null stream passed to setOutput().";
+
+		out = newOut;
+	}
+
+
+	/* Export the statistics of the players in every game played from now on, or stop
+	   exporting them if newStatsExport is null.
+	 */
+	void setStatsExport (StatsExport newStatsExport) {
+		statsExport = newStatsExport;
+	}
+
+
+	/* Record the final score of a game between a home team (team1) and an away team
+	   (team2), by publishing it to the subscribers to the results of the tournament (see
+	   the ResultSubscriber class), which keep its records. Results may be recorded by
+	   several threads at once (e.g., by the coordinator of a distributed tournament), so
+	   recording is synchronized. If a subscriber is behind, recording waits for it.
+	 */
+	synchronized void recordResult (Team team1, Team team2, int team1Score, int team2Score) {
+		getPublisher().submit(new GameResult(teamIndices.get(team1), teamIndices.get(team2), team1Score, team2Score));
+	}
+
+
+	/* Subscribe to the results of the games recorded from now on.
+	 */
+	synchronized void subscribe (ResultSubscriber subscriber) {
+		assert subscriber != null : "Null subscriber passed to subscribe().";
+
+		getPublisher();
+		subscribers.add(subscriber);
+		publisher.subscribe(subscriber);
+	}
+
+
+	/* Return the publisher of the results. It is created with the subscribers that keep
+	   the standings and the scores of the tournament when it is first needed, so that
+	   the copies of a tournament that only play its games (e.g., in a worker) do not pay
+	   for it.
+	 */
+	private SubmissionPublisher<GameResult> getPublisher () {
+		if (publisher != null)
+			return publisher;
+
+		if (Settings.RESULTS_BUFFER <= 0)
+			Quit.now("Invalid value of sts.results.buffer: " + Settings.RESULTS_BUFFER);
+
+		publisher = new SubmissionPublisher<GameResult>(ForkJoinPool.commonPool(), Settings.RESULTS_BUFFER);
+		subscribers = new Vector<ResultSubscriber>();
+
+		subscribe(new ResultSubscriber() {
+			void consume (GameResult result) {
 				boolean home = true;
-				TeamRecord team1Record = teamStats.get(team1);
-				team1Record.updateRecord(team1Score, team2Score, home);
-				team1Record.setScore(team2, team1Score, team2Score);
+				TeamRecord homeRecord = teamStats.get(teams.elementAt(result.homeTeam));
+				homeRecord.updateRecord(result.homeScore, result.awayScore, home);
 
 				home = false;
-				TeamRecord team2Record = teamStats.get(team2);
-				team2Record.updateRecord(team2Score, team1Score, home);
-				// No need to set the score for the away team, only the home team records are kept for each team	
+				TeamRecord awayRecord = teamStats.get(teams.elementAt(result.awayTeam));
+				awayRecord.updateRecord(result.awayScore, result.homeScore, home);
 			}
-	
+		});
+
+		if (results != null) {
+			subscribe(new ResultSubscriber() {
+				void consume (GameResult result) {
+					results.set(result.homeTeam, result.awayTeam, result.homeScore, result.awayScore);
+				}
+			});
 		}
 
-		
-		/* Sort the team records in non-ascending order and the output the final 
-		   standings table.
-		 */
-		Printer p = new Printer (pitchWidth, pitchLength);
+		return publisher;
+	}
+
+
+	/* Complete the results of the tournament, and wait until every subscriber has
+	   consumed them. No result can be recorded afterwards.
+	 */
+	synchronized void completeResults () {
+		if (publisher == null)
+			return;
+
+		publisher.close();
+
+		for (ResultSubscriber subscriber : subscribers)
+			subscriber.await();
+	}
+
+
+	/* Sort the team records in non-ascending order and the output the final 
+	   standings table.
+	 */
+	void outputResults () {
+		completeResults();
+
+		Printer p = new Printer(pitchWidth, pitchLength);
+		p.setOutput(out);
+
 		Team bestTeam = getBestTeam();
-		System.out.println("Best Team Strategy: " + bestTeam.getName());
+		out.println("Best Team Strategy: " + bestTeam.getName());
 		p.pitchWithRoamingRegions(bestTeam);
 		
-		outputScoresTable(teamRecords);
+		outputScoresTable();
 		sortTeamRecords(teamRecords);
 		outputStandingsTable(teamRecords);
 	}
 
 
+	/* Return the teams that participate in the tournament.
+	 */
+	Vector<Team> getTeams () {
+		return teams;
+	}
+
 
 	/* Returns the best team. 
 	 */
@@ -207,6 +423,8 @@ class Tournament {
 		pitchWidth = newPitchWidth;
 		pitchLength = newPitchLength;
 		teams = newTeams;
+		seeds = new Random();
+		out = System.out;
 
 		/* Create a team record for every team and insert it into a hash table
 		   indexed by the team object reference as well as a team records array, 
@@ -214,12 +432,25 @@ class Tournament {
 		 */
 		teamStats = new Hashtable<Team,TeamRecord>();
 		teamRecords = new TeamRecord[numTeams];
+		fingerprints = new Hashtable<Team,Long>();
+		teamIndices = new Hashtable<Team,Integer>();
 
 		for (int i=0; i < numTeams; i++) {
 			Team team = (Team) teams.elementAt(i);
 			TeamRecord tr = new TeamRecord(team.getName());
 			teamStats.put(team, tr); 
 			teamRecords[i] = tr;
+			fingerprints.put(team, ResultCache.fingerprint(team));
+			teamIndices.put(team, i);
+		}
+
+		/* Results are only worth remembering if the same matchup gets the same seed.
+		 */
+		if (Settings.CACHE_SIZE > 0 && Settings.SEED != null) {
+			cache = new ResultCache(Settings.CACHE_SIZE);
+
+			if (Settings.CACHE_FILE != null)
+				cache.load(Settings.CACHE_FILE);
 		}
 
 		if (outputSpec == null) {
@@ -236,6 +467,11 @@ class Tournament {
 			outputScores = false;
 		} else
 			assert false : "Usage: java -ea STS attributes.txt [s|st|ts|t]";
+
+		/* The scores take n^2 ints, so they are only kept if they are output.
+		 */
+		if (outputScores)
+			results = new ResultsStore(numTeams);
 	}
 } /* Tournament */
 
@@ -259,29 +495,28 @@ class TeamRecord {
 	private int awayLosses;
 	private int awayGoalsAllowed;
 	private int awayGoalsScored;
-	private Hashtable<Team,TeamResult> results; 	/* Keep track of only your home games */
 
 
-	public void outputRecord () {
+	public void outputRecord (PrintStream out) {
 		int goalsScored = homeGoalsScored + awayGoalsScored;
 		int goalsAllowed = homeGoalsAllowed + awayGoalsAllowed;
 
-		System.out.printf ("%-20s", name);
-		System.out.printf ("%4d %4d %4d %4d %4d    ", 
+		out.printf ("%-20s", name);
+		out.printf ("%4d %4d %4d %4d %4d    ", 
 				homeWins, 
 				homeDraws, 
 				homeLosses, 
 				homeGoalsScored, 
 				homeGoalsAllowed);
 
-		System.out.printf ("%4d %4d %4d %4d %4d    ", 
+		out.printf ("%4d %4d %4d %4d %4d    ", 
 				awayWins, 
 				awayDraws, 
 				awayLosses, 
 				awayGoalsScored, 
 				awayGoalsAllowed);
 
-		System.out.printf ("%4d %4d %4d %4d %4d %4d    ", 
+		out.printf ("%4d %4d %4d %4d %4d %4d    ", 
 				gamesPlayed, 
 				homeWins + awayWins,
 				homeDraws + awayDraws, 
@@ -289,7 +524,7 @@ class TeamRecord {
 				homeGoalsScored + awayGoalsScored, 
 				homeGoalsAllowed + awayGoalsAllowed);
 
-		System.out.printf ("%4d %4d\n", goalsScored-goalsAllowed, points); 
+		out.printf ("%4d %4d\n", goalsScored-goalsAllowed, points); 
 	}
 
 
@@ -338,21 +573,6 @@ class TeamRecord {
 	}
 
 
-	public TeamResult getScore (Team team) {
-		TeamResult teamResult = results.get(team);
-		return teamResult;
-	}
-
-
-	public void setScore (Team awayTeam, int homeScore, int awayScore) {
-		assert (homeScore >= 0 && awayScore >= 0) : "Scores cannot be negative.";
-		assert awayTeam != null : "No team specified.";
-		
-		TeamResult tr = new TeamResult(homeScore, awayScore);
-		results.put(awayTeam, tr); 
-	}
-
-
 	TeamRecord (String newName) {
 		name = newName;
 		points = 0;
@@ -367,39 +587,5 @@ class TeamRecord {
 		awayLosses = 0;
 		awayGoalsAllowed = 0;
 		awayGoalsScored = 0;
-		
-		results = new Hashtable<Team,TeamResult>();
 	}
 }
-
-
-/* A class that maintains a team's score for a single game of a tournament.
-
-   Author: Spiros Mancoridis (c) 2011
- */
-class TeamResult {
-	private int homeScore;			/* Home score. */
-	private int awayScore;			/* Away score. */
-
-	/* Return the home score.
-	 */
-	public int getHomeScore () {
-		return homeScore;
-	}
-
-	/* Return the away score.
-	 */
-	public int getAwayScore () {
-		return awayScore;
-	}
-
-	/* Construct a single game result and initialize the game's score.
-	 */
-	TeamResult (int newHomeScore, int newAwayScore) {
-		assert (newHomeScore >= 0 && newAwayScore >= 0) : "Scores cannot be negative.";
-			
-		homeScore = newHomeScore;
-		awayScore = newAwayScore;
-	}
-} /* TeamResult */
-
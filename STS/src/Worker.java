@@ -0,0 +1,97 @@
+/* A class that implements a worker of a distributed tournament (see the Coordinator
+   class). A worker connects to the coordinator, builds the tournament's roster from the
+   attributes and roster seed it receives, and then plays every fixture it is sent until
+   it is told to quit.
+ */
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+class Worker {
+	private final int maxConnectTries = 30;	/* Times to try to connect to the coordinator.	*/
+	private String host;					/* Host name of the coordinator.				*/
+	private int port;						/* Port of the coordinator.						*/
+
+
+	/* Connect to the coordinator, retrying for a while in case the worker has been
+	   started before the coordinator.
+	 */
+	private Socket connect () {
+		for (int attempt=1; ; attempt++) {
+			try {
+				return new Socket(host, port);
+			} catch (IOException e) {
+				if (attempt == maxConnectTries)
+					Quit.now("Cannot connect to coordinator " + host + ":" + port + ".");
+			}
+
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+				Quit.now("Worker interrupted.");
+			}
+		}
+	}
+
+
+	/* Play the fixtures sent by the coordinator.
+	 */
+	public void run () {
+		Socket socket = connect();
+
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			if (in.readByte() != Coordinator.ROSTER)
+				Quit.now("Unexpected message from coordinator.");
+
+			long rosterSeed = in.readLong();
+			byte [] text = new byte[in.readInt()];
+			in.readFully(text);
+
+			/* Build the same roster as the coordinator.
+			 */
+			Parser parser = new Parser(new String(text, "UTF-8"));
+			Vector<Team> teams = STS.buildTeams(parser, new Random(rosterSeed));
+			Tournament tournament = new Tournament(teams, parser.getPitchWidth(), parser.getPitchLength(), null);
+
+			while (true) {
+				byte message = in.readByte();
+
+				if (message == Coordinator.QUIT)
+					break;
+				if (message != Coordinator.FIXTURE)
+					Quit.now("Unexpected message from coordinator.");
+
+				int unit = in.readInt();
+				Team team1 = teams.get(in.readInt());
+				Team team2 = teams.get(in.readInt());
+				long seed = in.readLong();
+
+				Game g = tournament.playGame(team1, team2, seed);
+
+				out.writeByte(Coordinator.RESULT);
+				out.writeInt(unit);
+				out.writeInt(g.getTeam1Score());
+				out.writeInt(g.getTeam2Score());
+				out.flush();
+			}
+
+			socket.close();
+			Metrics.printSummary();
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+
+	/* Construct a worker of the coordinator at host:port.
+	 */
+	public Worker (String newHost, int newPort) {
+		host = newHost;
+		port = newPort;
+	}
+} /* Worker */